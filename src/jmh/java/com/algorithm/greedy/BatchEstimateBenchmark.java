@@ -0,0 +1,70 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Spread of many seed sets: estimateInfluenceBatch on shared worlds
+ * against one estimateInfluence call per set. "shared" sets are a fixed
+ * DegreeDiscount base plus one random node, as in a greedy round or a
+ * what-if query; "disjoint" sets are three random nodes each. Average time
+ * per invocation of the whole batch, on one thread, with the spread cache
+ * disabled.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchEstimateBenchmark {
+    @Param({"BA", "WS"})
+    public String family;
+
+    @Param({"10000"})
+    public int n;
+
+    @Param({"IC", "LT"})
+    public String model;
+
+    @Param({"1", "64", "256"})
+    public int sets;
+
+    @Param({"1000"})
+    public int numSim;
+
+    @Param({"shared", "disjoint"})
+    public String overlap;
+
+    private InfluenceMaximization im;
+    private List<Set<Integer>> seedSets;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        im = BenchmarkGraphs.build(family, n, model);
+        im.setParallelism(1);
+        im.setSpreadCacheSize(0);
+        Set<Integer> base = im.degreeDiscountIM(5, false).seeds;
+        Random r = new Random(BenchmarkGraphs.SEED);
+        seedSets = new ArrayList<>();
+        for (int i = 0; i < sets; i++) {
+            Set<Integer> set = overlap.equals("shared") ? new HashSet<>(base) : new HashSet<>();
+            int size = set.size() + (overlap.equals("shared") ? 1 : 3);
+            while (set.size() < size) set.add(r.nextInt(n));
+            seedSets.add(set);
+        }
+    }
+
+    @Benchmark
+    public InfluenceMaximization.Estimate[] batch() {
+        return im.estimateInfluenceBatch(seedSets, numSim);
+    }
+
+    @Benchmark
+    public double[] perSet() {
+        double[] out = new double[sets];
+        for (int i = 0; i < sets; i++) out[i] = im.estimateInfluence(seedSets.get(i), numSim);
+        return out;
+    }
+}
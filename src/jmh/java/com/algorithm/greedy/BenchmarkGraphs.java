@@ -0,0 +1,37 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+
+/**
+ * Graph families for the benchmarks, all with mean out-degree about 6 so
+ * sizes compare across families: BA with m=3, WS with k=6 and p=0.1, and
+ * ER with p=6/n. A fixed generator seed keeps every fork on the same graph.
+ */
+final class BenchmarkGraphs {
+    static final int SEED = 7;
+
+    private BenchmarkGraphs() { }
+
+    static InfluenceMaximization build(String family, int n, String model) {
+        GraphGenerator gen = new GraphGenerator(SEED);
+        InfluenceMaximization im;
+        switch (family) {
+            case "BA": im = gen.generateBarabasiAlbert(n, 3, model); break;
+            case "WS": im = gen.generateWattsStrogatz(n, 6, 0.1, model); break;
+            case "ER": im = gen.generateErdosRenyi(n, 6.0 / n, model); break;
+            default: throw new IllegalArgumentException("unknown family: " + family);
+        }
+        // The generators assign edge parameters already; reassigning would redraw LT weights
+        return im;
+    }
+
+    /** Dense ids of a DegreeDiscount seed set, so cascades start somewhere that spreads. */
+    static int[] seeds(InfluenceMaximization im, int k) {
+        Set<Integer> ids = im.degreeDiscountIM(k, false).seeds;
+        int[] dense = new int[ids.size()];
+        int i = 0;
+        for (int id : ids) dense[i++] = im.getGraph().denseId(id);
+        Arrays.sort(dense);
+        return dense;
+    }
+}
@@ -0,0 +1,22 @@
+package com.algorithm.greedy;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.*;
+
+/**
+ * Entry point of target/benchmarks.jar: the usual JMH command line, with
+ * the gc profiler always on so every result carries its allocation rate
+ * (gc.alloc.rate.norm is bytes per operation).
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListProfilers() || cmd.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        Options opts = new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class).build();
+        new Runner(opts).run();
+    }
+}
@@ -0,0 +1,45 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Monte Carlo estimateInfluence of a fixed ten-node seed set, per graph
+ * family, size, model and number of simulations. Runs on one thread, so
+ * the figures are per core and include the batched IC kernel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EstimateBenchmark {
+    @Param({"BA", "WS", "ER"})
+    public String family;
+
+    @Param({"1000", "10000"})
+    public int n;
+
+    @Param({"IC", "LT"})
+    public String model;
+
+    @Param({"100", "1000"})
+    public int numSim;
+
+    private InfluenceMaximization im;
+    private Set<Integer> seeds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        im = BenchmarkGraphs.build(family, n, model);
+        im.setParallelism(1);
+        seeds = new HashSet<>(im.degreeDiscountIM(10, false).seeds);
+    }
+
+    @Benchmark
+    public double estimateInfluence() {
+        return im.estimateInfluence(seeds, numSim);
+    }
+}
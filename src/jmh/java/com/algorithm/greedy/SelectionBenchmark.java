@@ -0,0 +1,51 @@
+package com.algorithm.greedy;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * End-to-end greedyIM and celfIM. Plain greedy scores every node in every
+ * round, so the defaults stay small; raise them with -p n=... -p k=...
+ * The spread cache is disabled so every invocation does the full work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class SelectionBenchmark {
+    @Param({"BA", "WS", "ER"})
+    public String family;
+
+    @Param({"500"})
+    public int n;
+
+    @Param({"IC", "LT"})
+    public String model;
+
+    @Param({"100"})
+    public int numSim;
+
+    @Param({"5"})
+    public int k;
+
+    private InfluenceMaximization im;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        im = BenchmarkGraphs.build(family, n, model);
+        im.setParallelism(1);
+        im.setSpreadCacheSize(0);
+    }
+
+    @Benchmark
+    public InfluenceMaximization.Result greedyIM() {
+        return im.greedyIM(k, numSim, false);
+    }
+
+    @Benchmark
+    public InfluenceMaximization.Result celfIM() {
+        return im.celfIM(k, numSim, false);
+    }
+}
@@ -0,0 +1,50 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Single cascades (each PropagationModel's forward kernel) and parameter
+ * initialization, per graph family, size and model. One cascade starts from ten
+ * DegreeDiscount seeds and draws from a generator kept across calls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+    @Param({"BA", "WS", "ER"})
+    public String family;
+
+    @Param({"1000", "10000"})
+    public int n;
+
+    @Param({"IC", "LT", "SIR"})
+    public String model;
+
+    private InfluenceMaximization im;
+    private int[] seeds;
+    private SplittableRandom rng;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        im = BenchmarkGraphs.build(family, n, model);
+        im.setParallelism(1);
+        seeds = BenchmarkGraphs.seeds(im, 10);
+        rng = new SplittableRandom(BenchmarkGraphs.SEED);
+    }
+
+    @Benchmark
+    public int simulate() {
+        return im.simulate(seeds, seeds.length, rng);
+    }
+
+    @Benchmark
+    public InfluenceMaximization initializePropagationParameters() {
+        im.initializePropagationParameters();
+        return im;
+    }
+}
@@ -18,6 +18,7 @@ public class Main {
                 case "divideconquer":
                 case "dc": runDivideConquerDemo(); break;
                 case "compare": runComparison(); break;
+                case "serve": InfluenceServer.main(Arrays.copyOfRange(args, 1, args.length)); break;
                 default: showUsage();
             }
         } catch (Exception e) {
@@ -31,6 +32,7 @@ public class Main {
         System.out.println("  mvn exec:java -Dexec.args=\"greedy\"");
         System.out.println("  mvn exec:java -Dexec.args=\"divideconquer\"");
         System.out.println("  mvn exec:java -Dexec.args=\"compare\"");
+        System.out.println("  mvn exec:java -Dexec.args=\"serve [port] [edge list | n] [IC|LT]\"");
     }
     
     private static void runGreedyDemo() {
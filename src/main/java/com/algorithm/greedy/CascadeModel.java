@@ -0,0 +1,245 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+
+/**
+ * Kernels shared by the Independent Cascade family: a newly active u gets
+ * one chance to activate each out-neighbour v, succeeding with the edge's
+ * p(u, v). Subclasses only decide how the probabilities are assigned. The
+ * forward kernel runs 64 cascades per pass on bit masks while they share
+ * enough edges, then falls back to one cascade at a time.
+ */
+abstract class CascadeModel extends TriggeringModel {
+    // The batch kernel must save this factor of edge scans over scalar cascades to stay on
+    private static final double MIN_EDGE_SHARING = 2.5;
+
+    @Override
+    protected int sampleTriggeringSet(CompactGraph g, int v, int[] into, SplittableRandom rng) {
+        int size = 0;
+        for (int i = g.inOffsets[v]; i < g.inEnds[v]; i++) {
+            if (rng.nextDouble() < g.inProbs[i]) into[size++] = i;
+        }
+        return size;
+    }
+
+    @Override
+    public Simulator simulator(CompactGraph g) {
+        return new CascadeSimulator(g);
+    }
+
+    @Override
+    public void sampleLiveEdges(CompactGraph g, boolean[] live, SplittableRandom rng) {
+        for (int u = 0; u < g.numNodes; u++) {
+            for (int e = g.outOffsets[u]; e < g.outEnds[u]; e++) {
+                if (rng.nextDouble() < g.outProbs[e]) live[e] = true;
+            }
+        }
+    }
+
+    /** Reverse BFS, flipping each in-edge's coin when its target is expanded. */
+    @Override
+    public ReverseSampler reverseSampler(CompactGraph g) {
+        return new ReverseSampler(g.numNodes) {
+            @Override
+            public int sample(int root, SplittableRandom rng) {
+                int stamp = nextEpoch();
+                visitMark[root] = stamp;
+                nodes[0] = root;
+                int head = 0, tail = 1;
+                while (head < tail) {
+                    int v = nodes[head++];
+                    for (int i = g.inOffsets[v], end = g.inEnds[v]; i < end; i++) {
+                        int u = g.inSources[i];
+                        if (visitMark[u] != stamp && rng.nextDouble() < g.inProbs[i]) {
+                            visitMark[u] = stamp;
+                            nodes[tail++] = u;
+                        }
+                    }
+                }
+                return tail;
+            }
+        };
+    }
+
+    @Override
+    public WorldSampler worldSampler(CompactGraph g) {
+        return (u, e, world) -> WorldSampler.uniform(world, e) < g.outProbs[e];
+    }
+
+    /** Scalar and 64-lane IC kernels; scratch is reset by bumping the epoch instead of clearing. */
+    private static final class CascadeSimulator extends Simulator {
+        private final CompactGraph g;
+        private final int[] visitMark, queue;
+        // Bit-parallel: activation and not-yet-propagated bits per node, FIFO ring of nodes
+        private final long[] mask, pending;
+        private final int[] ring;
+        // Edge scans of the last batch, and what the same 64 cascades cost one at a time
+        private long batchEdges, scalarEdges;
+        private int epoch;
+
+        CascadeSimulator(CompactGraph g) {
+            this.g = g;
+            int n = g.numNodes;
+            visitMark = new int[n];
+            queue = new int[n];
+            mask = new long[n];
+            pending = new long[n];
+            ring = new int[n];
+        }
+
+        private int nextEpoch() {
+            if (++epoch == 0) {
+                Arrays.fill(visitMark, 0);
+                epoch = 1;
+            }
+            return epoch;
+        }
+
+        @Override
+        public long run(int[] seeds, int numSeeds, int numSim, SplittableRandom rng) {
+            // 64 cascades per pass, the last batch only uses the low numSim % 64 lanes.
+            // When the worlds barely overlap the batch rescans edges almost as often
+            // as separate cascades would, and the scalar kernel is cheaper per scan.
+            // A one-lane batch draws exactly what the scalar kernel does, only slower
+            if (numSim == 1) return simulate(seeds, numSeeds, rng);
+            long total = 0;
+            int done = 0;
+            while (done < numSim) {
+                int batch = Math.min(64, numSim - done);
+                long lanes = batch == 64 ? -1L : (1L << batch) - 1;
+                total += simulateBatch(seeds, numSeeds, lanes, rng);
+                done += batch;
+                if (scalarEdges < MIN_EDGE_SHARING * batchEdges) break;
+            }
+            for (; done < numSim; done++) total += simulate(seeds, numSeeds, rng);
+            return total;
+        }
+
+        private int simulate(int[] seeds, int numSeeds, SplittableRandom rng) {
+            int stamp = nextEpoch();
+            int head = 0, tail = 0;
+            for (int i = 0; i < numSeeds; i++) {
+                int s = seeds[i];
+                if (visitMark[s] != stamp) {
+                    visitMark[s] = stamp;
+                    queue[tail++] = s;
+                }
+            }
+            while (head < tail) {
+                int u = queue[head++];
+                edges += g.outEnds[u] - g.outOffsets[u];
+                for (int e = g.outOffsets[u], end = g.outEnds[u]; e < end; e++) {
+                    int v = g.outTargets[e];
+                    if (visitMark[v] != stamp && rng.nextDouble() < g.outProbs[e]) {
+                        visitMark[v] = stamp;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+            return tail;
+        }
+
+        /**
+         * Runs up to 64 cascades at once: bit i of mask[v] says whether v is
+         * active in world i. A node is re-queued only for the worlds in which it
+         * became active since it was last processed, so each edge coin is flipped
+         * at most once per world, as in simulate. Returns the summed spread.
+         */
+        private long simulateBatch(int[] seeds, int numSeeds, long lanes, SplittableRandom rng) {
+            int[] touched = queue;
+            int n = ring.length;
+            int stamp = nextEpoch();
+            int numTouched = 0, head = 0, tail = 0, queued = 0;
+            long scanned = 0, scalar = 0;
+
+            for (int i = 0; i < numSeeds; i++) {
+                int s = seeds[i];
+                if (visitMark[s] != stamp) {
+                    visitMark[s] = stamp;
+                    touched[numTouched++] = s;
+                    mask[s] = lanes;
+                    pending[s] = lanes;
+                    ring[tail++] = s;
+                    queued++;
+                }
+            }
+            if (tail == n) tail = 0;
+
+            while (queued > 0) {
+                int u = ring[head++];
+                if (head == n) head = 0;
+                queued--;
+                long delta = pending[u];
+                pending[u] = 0;
+                scanned += g.outEnds[u] - g.outOffsets[u];
+                for (int e = g.outOffsets[u], end = g.outEnds[u]; e < end; e++) {
+                    int v = g.outTargets[e];
+                    long fresh = delta;
+                    if (visitMark[v] == stamp) {
+                        fresh &= ~mask[v];
+                        if (fresh == 0) continue;
+                    }
+                    long live = bernoulliMask(g.outProbs[e], fresh, rng);
+                    if (live == 0) continue;
+                    if (visitMark[v] != stamp) {
+                        visitMark[v] = stamp;
+                        touched[numTouched++] = v;
+                        mask[v] = 0;
+                        pending[v] = 0;
+                    }
+                    mask[v] |= live;
+                    if (pending[v] == 0) {
+                        ring[tail++] = v;
+                        if (tail == n) tail = 0;
+                        queued++;
+                    }
+                    pending[v] |= live;
+                }
+            }
+
+            long total = 0;
+            for (int i = 0; i < numTouched; i++) {
+                int v = touched[i];
+                int active = Long.bitCount(mask[v]);
+                total += active;
+                scalar += (long) active * (g.outEnds[v] - g.outOffsets[v]);
+            }
+            batchEdges = scanned;
+            edges += scanned;
+            scalarEdges = scalar;
+            return total;
+        }
+    }
+
+    /**
+     * Independent Bernoulli(p) draws for the lanes set in `lanes`. Compares
+     * each lane's uniform, generated one bit per random long, against the
+     * binary expansion of p; a lane is settled at the first differing bit,
+     * so about log2(popcount(lanes)) longs are drawn per call.
+     */
+    static long bernoulliMask(double p, long lanes, SplittableRandom rng) {
+        if (p >= 1.0) return lanes;
+        if (p <= 0.0) return 0;
+        if (Long.bitCount(lanes) <= 2) {
+            // Too few lanes for the bit-sliced draw to pay off
+            long hit = 0;
+            for (long l = lanes; l != 0; l &= l - 1) {
+                if (rng.nextDouble() < p) hit |= Long.lowestOneBit(l);
+            }
+            return hit;
+        }
+        long bits = (long) (p * 0x1p62);
+        long hit = 0, undecided = lanes;
+        for (long b = 1L << 61; undecided != 0 && bits != 0; b >>>= 1) {
+            long r = rng.nextLong();
+            if ((bits & b) != 0) {
+                hit |= undecided & ~r;
+                undecided &= r;
+                bits ^= b;
+            } else {
+                undecided &= ~r;
+            }
+        }
+        return hit;
+    }
+}
@@ -0,0 +1,105 @@
+package com.algorithm.greedy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Periodic checkpoints of one greedyIM / celfIM run (see
+ * InfluenceMaximization.setCheckpoint); does nothing when no file is
+ * configured. Snapshots go to a SelectionCheckpoint.Writer, so the
+ * selection never waits for the disk until the run ends.
+ */
+final class Checkpoints {
+    private final Path file;
+    private final long intervalMillis, start;
+    private final int algorithm, numNodes, k, numSim;
+    private final String model;
+    private final long stream, fingerprint;
+    // CELF's singleton spreads, stored with its queue; null for greedy
+    private final double[] singleton;
+    private final SelectionCheckpoint.Writer writer;
+    private long last = System.currentTimeMillis();
+    private double lastSpread;
+    private int lastIteration;
+
+    /** g is only read for its fingerprint and may be null when file is; start is the run's start time. */
+    Checkpoints(Path file, long intervalMillis, int algorithm, String model, CompactGraph g, int numNodes,
+                int k, int numSim, long stream, double[] singleton, long start, SelectionCheckpoint from) {
+        this.file = file; this.intervalMillis = intervalMillis; this.algorithm = algorithm; this.model = model;
+        this.numNodes = numNodes; this.k = k; this.numSim = numSim; this.stream = stream;
+        this.singleton = singleton; this.start = start;
+        if (from != null) {
+            lastSpread = from.spread;
+            lastIteration = from.iteration;
+        }
+        writer = file == null ? null : new SelectionCheckpoint.Writer(file);
+        fingerprint = writer == null ? 0 : SelectionCheckpoint.fingerprint(g);
+    }
+
+    /**
+     * Loads a checkpoint's seeds into S and result; returns the number of
+     * seeds. The spread of S goes back into cache, as the run had it there
+     * when it was interrupted. nodeId maps dense ids to original ones.
+     */
+    static int restore(SelectionCheckpoint c, int[] S, InfluenceMaximization.Result result, SpreadCache cache,
+                       IntUnaryOperator nodeId) {
+        int size = c.seeds.length;
+        System.arraycopy(c.seeds, 0, S, 0, size);
+        for (int i = 0; i < size; i++) result.seeds.add(nodeId.applyAsInt(S[i]));
+        result.history.addAll(c.history);
+        if (size > 0) cache.put(new SpreadCache.Key(S, size, c.numSim, c.stream), c.spread);
+        return size;
+    }
+
+    /** Called after each seed; hands a snapshot to the writer once the interval has passed. */
+    void seed(int[] S, int size, double spread, int iteration, InfluenceMaximization.Result result,
+              IndexedMaxHeap Q, int evaluations, long simulations) {
+        lastSpread = spread;
+        lastIteration = iteration;
+        long now = System.currentTimeMillis();
+        if (writer == null || now - last < intervalMillis) return;
+        last = now;
+        writer.submit(snapshot(S, size, result, Q, evaluations, simulations));
+    }
+
+    /** Writes the final state and waits for the writer; a failed write is reported, not thrown. */
+    void close(int[] S, int size, InfluenceMaximization.Result result, IndexedMaxHeap Q,
+               int evaluations, long simulations) {
+        if (writer == null) return;
+        writer.submit(snapshot(S, size, result, Q, evaluations, simulations));
+        IOException failure = writer.close();
+        if (failure != null) System.err.println("Checkpoint to " + file + " failed: " + failure);
+    }
+
+    private SelectionCheckpoint snapshot(int[] S, int size, InfluenceMaximization.Result result, IndexedMaxHeap Q,
+                                         int evaluations, long simulations) {
+        SelectionCheckpoint c = new SelectionCheckpoint();
+        c.algorithm = algorithm;
+        c.model = model;
+        c.fingerprint = fingerprint;
+        c.numNodes = numNodes;
+        c.k = k;
+        c.numSim = numSim;
+        c.stream = stream;
+        c.seeds = Arrays.copyOf(S, size);
+        c.spread = lastSpread;
+        c.iteration = lastIteration;
+        c.evaluations = evaluations;
+        c.simulations = simulations;
+        c.elapsed = (System.currentTimeMillis() - start) / 1000.0;
+        c.history = new ArrayList<>(result.history);
+        if (Q != null) {
+            c.singleton = singleton;
+            c.queueNodes = Q.toArray();
+            c.queueIterations = new int[c.queueNodes.length];
+            c.queueGains = new double[c.queueNodes.length];
+            for (int i = 0; i < c.queueNodes.length; i++) {
+                c.queueIterations[i] = Q.iteration[c.queueNodes[i]];
+                c.queueGains[i] = Q.gain[c.queueNodes[i]];
+            }
+        }
+        return c;
+    }
+}
@@ -0,0 +1,370 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+
+/**
+ * Compressed-sparse-row graph used by InfluenceMaximization.
+ * Nodes are renumbered to dense ids 0..n-1; out-edges of u live in
+ * outTargets[outOffsets[u] .. outEnds[u]) and in-edges of v in
+ * inSources[inOffsets[v] .. inEnds[v]). Edge probabilities are kept
+ * in parallel arrays for both directions, inToOut maps an in-edge slot to
+ * the slot of the same edge in the out arrays.
+ *
+ * As built, rows are packed and outEnds[u] == outOffsets[u+1]. Edges can
+ * also be inserted and deleted in place (insertEdge, deleteEdge): a row
+ * that runs out of room moves to the end of the arrays with spare
+ * capacity, leaving a gap behind, so an update touches only the rows of
+ * its two endpoints. compacted() squeezes the gaps out again.
+ */
+public final class CompactGraph {
+    int numNodes, numEdges;
+    int[] nodeIds;
+    int[] outOffsets, outEnds, outTargets;
+    int[] inOffsets, inEnds, inSources, inToOut;
+    double[] outProbs, inProbs;
+    // null when node ids are already 0..n-1 (see Builder.dense)
+    private IntIntHashMap index;
+    private boolean weighted;
+    // Set up by the first update: row capacities, outToIn (inverse of inToOut)
+    // and the first free slot at the end of each edge array
+    private int[] outLimit, inLimit, outToIn;
+    private int outTail, inTail;
+
+    private CompactGraph(int[] nodeIds, int numNodes, IntIntHashMap index,
+                         int[] src, int[] dst, int numEdges) {
+        this.numNodes = numNodes;
+        this.numEdges = numEdges;
+        this.nodeIds = Arrays.copyOf(nodeIds, numNodes);
+        this.index = index;
+
+        outOffsets = new int[numNodes + 1];
+        inOffsets = new int[numNodes + 1];
+        for (int e = 0; e < numEdges; e++) {
+            outOffsets[src[e] + 1]++;
+            inOffsets[dst[e] + 1]++;
+        }
+        for (int v = 0; v < numNodes; v++) {
+            outOffsets[v + 1] += outOffsets[v];
+            inOffsets[v + 1] += inOffsets[v];
+        }
+
+        outTargets = new int[numEdges];
+        inSources = new int[numEdges];
+        inToOut = new int[numEdges];
+        int[] outFill = Arrays.copyOf(outOffsets, numNodes);
+        int[] inFill = Arrays.copyOf(inOffsets, numNodes);
+        for (int e = 0; e < numEdges; e++) {
+            int o = outFill[src[e]]++;
+            int i = inFill[dst[e]]++;
+            outTargets[o] = dst[e];
+            inSources[i] = src[e];
+            inToOut[i] = o;
+        }
+        outProbs = new double[numEdges];
+        inProbs = new double[numEdges];
+        outEnds = Arrays.copyOfRange(outOffsets, 1, numNodes + 1);
+        inEnds = Arrays.copyOfRange(inOffsets, 1, numNodes + 1);
+    }
+
+    /**
+     * Wraps already laid-out CSR arrays, e.g. read back from a binary graph
+     * file. outProbs may be null for an unweighted graph.
+     */
+    CompactGraph(int[] nodeIds, int[] outOffsets, int[] outTargets,
+                 int[] inOffsets, int[] inSources, int[] inToOut, double[] outProbs) {
+        this.numNodes = nodeIds.length;
+        this.numEdges = outTargets.length;
+        this.nodeIds = nodeIds;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.inToOut = inToOut;
+        this.outEnds = Arrays.copyOfRange(outOffsets, 1, numNodes + 1);
+        this.inEnds = Arrays.copyOfRange(inOffsets, 1, numNodes + 1);
+        boolean identity = true;
+        for (int v = 0; v < numNodes && identity; v++) identity = nodeIds[v] == v;
+        if (identity) {
+            this.index = null;
+        } else {
+            this.index = new IntIntHashMap(numNodes);
+            for (int v = 0; v < numNodes; v++) index.putIfAbsent(nodeIds[v], v);
+        }
+        this.weighted = outProbs != null;
+        this.outProbs = outProbs != null ? outProbs : new double[numEdges];
+        this.inProbs = new double[numEdges];
+        for (int i = 0; i < numEdges; i++) inProbs[i] = this.outProbs[inToOut[i]];
+    }
+
+    public int numNodes() { return numNodes; }
+    public int numEdges() { return numEdges; }
+
+    /** Original id of dense node v. */
+    public int nodeId(int v) { return nodeIds[v]; }
+
+    /** Dense id of an original node id, or -1 if the node is not in the graph. */
+    public int denseId(int id) {
+        if (index == null) return id >= 0 && id < numNodes ? id : -1;
+        return index.get(id, -1);
+    }
+
+    public int outDegree(int u) { return outEnds[u] - outOffsets[u]; }
+    public int inDegree(int v) { return inEnds[v] - inOffsets[v]; }
+
+    /** Sets the probability of the in-edge stored at slot i of the reverse arrays. */
+    void setInProbability(int i, double p) {
+        inProbs[i] = p;
+        outProbs[inToOut[i]] = p;
+        weighted = true;
+    }
+
+    /** True once propagation probabilities have been assigned or loaded. */
+    public boolean hasProbabilities() { return weighted; }
+
+    /** Dense id of node id, appending it as an isolated node if it is new. */
+    int addNode(int id) {
+        int v = denseId(id);
+        if (v >= 0) return v;
+        makeDynamic();
+        v = numNodes;
+        if (v == nodeIds.length || v == outEnds.length) {
+            int cap = v + (v >> 1) + 16;
+            nodeIds = Arrays.copyOf(nodeIds, cap);
+            outOffsets = Arrays.copyOf(outOffsets, cap + 1);
+            inOffsets = Arrays.copyOf(inOffsets, cap + 1);
+            outEnds = Arrays.copyOf(outEnds, cap);
+            inEnds = Arrays.copyOf(inEnds, cap);
+            outLimit = Arrays.copyOf(outLimit, cap);
+            inLimit = Arrays.copyOf(inLimit, cap);
+        }
+        if (index == null && id != v) {
+            index = new IntIntHashMap(v + 16);
+            for (int w = 0; w < v; w++) index.putIfAbsent(w, w);
+        }
+        if (index != null) index.putIfAbsent(id, v);
+        nodeIds[v] = id;
+        // An empty row without capacity; the first edge moves it to the tail
+        outOffsets[v] = outEnds[v] = outLimit[v] = outTail;
+        inOffsets[v] = inEnds[v] = inLimit[v] = inTail;
+        numNodes++;
+        return v;
+    }
+
+    /**
+     * Inserts the edge u -> v between dense ids with probability 0 and
+     * returns its slot in the reverse arrays. Parallel edges are allowed,
+     * as in the Builder.
+     */
+    int insertEdge(int u, int v) {
+        makeDynamic();
+        if (outEnds[u] == outLimit[u]) moveOutRow(u);
+        if (inEnds[v] == inLimit[v]) moveInRow(v);
+        int o = outEnds[u]++, i = inEnds[v]++;
+        outTargets[o] = v;
+        outProbs[o] = 0;
+        outToIn[o] = i;
+        inSources[i] = u;
+        inProbs[i] = 0;
+        inToOut[i] = o;
+        numEdges++;
+        return i;
+    }
+
+    /**
+     * Deletes one edge u -> v between dense ids. The last edge of each row
+     * fills the hole, so the rows of u and v are reordered. Returns false
+     * if there is no such edge.
+     */
+    boolean deleteEdge(int u, int v) {
+        int o = outOffsets[u];
+        while (o < outEnds[u] && outTargets[o] != v) o++;
+        if (o == outEnds[u]) return false;
+        makeDynamic();
+        int i = outToIn[o];
+        int lastOut = --outEnds[u];
+        if (o != lastOut) {
+            outTargets[o] = outTargets[lastOut];
+            outProbs[o] = outProbs[lastOut];
+            outToIn[o] = outToIn[lastOut];
+            inToOut[outToIn[o]] = o;
+        }
+        int lastIn = --inEnds[v];
+        if (i != lastIn) {
+            inSources[i] = inSources[lastIn];
+            inProbs[i] = inProbs[lastIn];
+            inToOut[i] = inToOut[lastIn];
+            outToIn[inToOut[i]] = i;
+        }
+        numEdges--;
+        return true;
+    }
+
+    private void makeDynamic() {
+        if (outToIn != null) return;
+        outLimit = Arrays.copyOf(outEnds, outEnds.length);
+        inLimit = Arrays.copyOf(inEnds, inEnds.length);
+        outTail = outTargets.length;
+        inTail = inSources.length;
+        outToIn = new int[outTargets.length];
+        for (int i = 0; i < inToOut.length; i++) outToIn[inToOut[i]] = i;
+    }
+
+    /** Moves u's out-row to the tail with room for twice its edges. */
+    private void moveOutRow(int u) {
+        int from = outOffsets[u], degree = outEnds[u] - from;
+        int cap = Math.max(4, 2 * degree);
+        if (outTail + cap > outTargets.length) {
+            int size = growTo(outTargets.length, outTail + cap);
+            outTargets = Arrays.copyOf(outTargets, size);
+            outProbs = Arrays.copyOf(outProbs, size);
+            outToIn = Arrays.copyOf(outToIn, size);
+        }
+        int to = outTail;
+        System.arraycopy(outTargets, from, outTargets, to, degree);
+        System.arraycopy(outProbs, from, outProbs, to, degree);
+        System.arraycopy(outToIn, from, outToIn, to, degree);
+        for (int j = 0; j < degree; j++) inToOut[outToIn[to + j]] = to + j;
+        outOffsets[u] = to;
+        outEnds[u] = to + degree;
+        outLimit[u] = to + cap;
+        outTail += cap;
+    }
+
+    private void moveInRow(int v) {
+        int from = inOffsets[v], degree = inEnds[v] - from;
+        int cap = Math.max(4, 2 * degree);
+        if (inTail + cap > inSources.length) {
+            int size = growTo(inSources.length, inTail + cap);
+            inSources = Arrays.copyOf(inSources, size);
+            inProbs = Arrays.copyOf(inProbs, size);
+            inToOut = Arrays.copyOf(inToOut, size);
+        }
+        int to = inTail;
+        System.arraycopy(inSources, from, inSources, to, degree);
+        System.arraycopy(inProbs, from, inProbs, to, degree);
+        System.arraycopy(inToOut, from, inToOut, to, degree);
+        for (int j = 0; j < degree; j++) outToIn[inToOut[to + j]] = to + j;
+        inOffsets[v] = to;
+        inEnds[v] = to + degree;
+        inLimit[v] = to + cap;
+        inTail += cap;
+    }
+
+    private static int growTo(int length, int needed) {
+        long size = Math.max(needed, length + (length >> 1) + 16L);
+        if (size > Integer.MAX_VALUE - 16) throw new IllegalStateException("edge arrays full");
+        return (int) size;
+    }
+
+    /** The same graph with packed rows, e.g. for writing to disk; this graph if it has no gaps. */
+    public CompactGraph compacted() {
+        if (outToIn == null) return this;
+        int n = numNodes, m = numEdges;
+        int[] outOff = new int[n + 1], targets = new int[m];
+        int[] inOff = new int[n + 1], sources = new int[m], toOut = new int[m];
+        double[] probs = new double[m];
+        int[] moved = new int[outTargets.length];
+        for (int u = 0, j = 0; u < n; u++) {
+            for (int e = outOffsets[u]; e < outEnds[u]; e++, j++) {
+                moved[e] = j;
+                targets[j] = outTargets[e];
+                probs[j] = outProbs[e];
+            }
+            outOff[u + 1] = j;
+        }
+        for (int v = 0, j = 0; v < n; v++) {
+            for (int i = inOffsets[v]; i < inEnds[v]; i++, j++) {
+                sources[j] = inSources[i];
+                toOut[j] = moved[inToOut[i]];
+            }
+            inOff[v + 1] = j;
+        }
+        return new CompactGraph(Arrays.copyOf(nodeIds, n), outOff, targets, inOff, sources, toOut,
+                                weighted ? probs : null);
+    }
+
+    /** Reopens the graph for edge insertion, keeping node and edge order. */
+    public Builder toBuilder() {
+        Builder b = new Builder(numNodes, numEdges);
+        for (int v = 0; v < numNodes; v++) b.addNode(nodeIds[v]);
+        for (int u = 0; u < numNodes; u++) {
+            for (int e = outOffsets[u]; e < outEnds[u]; e++) {
+                b.addDenseEdge(u, outTargets[e]);
+            }
+        }
+        return b;
+    }
+
+    public static final class Builder {
+        private final IntIntHashMap index;
+        private int[] nodeIds;
+        private int numNodes;
+        private int[] src, dst;
+        private int numEdges;
+
+        public Builder() { this(16, 16); }
+
+        public Builder(int expectedNodes, int expectedEdges) {
+            index = new IntIntHashMap(Math.max(expectedNodes, 16));
+            nodeIds = new int[Math.max(expectedNodes, 16)];
+            src = new int[Math.max(expectedEdges, 16)];
+            dst = new int[src.length];
+        }
+
+        private Builder(int[] identity, int expectedEdges) {
+            index = null;
+            nodeIds = identity;
+            numNodes = identity.length;
+            src = new int[Math.max(expectedEdges, 16)];
+            dst = new int[src.length];
+        }
+
+        /**
+         * Builder for nodes 0..n-1 whose ids are their dense ids, as the
+         * generators produce. No id map is kept; edges go in through
+         * addDenseEdge and addNode only accepts ids in range.
+         */
+        static Builder dense(int n, int expectedEdges) {
+            int[] ids = new int[n];
+            for (int v = 0; v < n; v++) ids[v] = v;
+            return new Builder(ids, expectedEdges);
+        }
+
+        /** Returns the dense id of node id, registering it if it is new. */
+        public int addNode(int id) {
+            if (index == null) {
+                if (id < 0 || id >= numNodes) throw new IllegalArgumentException("node " + id + " outside 0.." + (numNodes - 1));
+                return id;
+            }
+            int v = index.putIfAbsent(id, numNodes);
+            if (v == numNodes) {
+                if (numNodes == nodeIds.length) nodeIds = Arrays.copyOf(nodeIds, numNodes * 2);
+                nodeIds[numNodes++] = id;
+            }
+            return v;
+        }
+
+        public void addEdge(int u, int v) {
+            int du = addNode(u);
+            addDenseEdge(du, addNode(v));
+        }
+
+        void addDenseEdge(int u, int v) {
+            if (numEdges == src.length) {
+                int cap = numEdges + (numEdges >> 1) + 16;
+                src = Arrays.copyOf(src, cap);
+                dst = Arrays.copyOf(dst, cap);
+            }
+            src[numEdges] = u;
+            dst[numEdges++] = v;
+        }
+
+        public int numNodes() { return numNodes; }
+        public int numEdges() { return numEdges; }
+        int nodeId(int v) { return nodeIds[v]; }
+
+        public CompactGraph build() {
+            return new CompactGraph(nodeIds, numNodes, index, src, dst, numEdges);
+        }
+    }
+}
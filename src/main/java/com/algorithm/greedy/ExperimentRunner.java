@@ -1,99 +1,313 @@
 package com.algorithm.greedy;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.io.*;
 
+/**
+ * Runs the experiment suite. Every experiment is split into independent
+ * cells (one configuration each) that run concurrently on a fixed number
+ * of cores; each CSV is written in cell order once its cells are done.
+ *
+ * A cell's graph depends only on its key (family, parameters, model,
+ * seed): it is generated once by a GraphGenerator seeded for that key and
+ * its CompactGraph is shared read-only, each cell wrapping it in its own
+ * InfluenceMaximization. Results therefore do not depend on the core
+ * budget or on which cells run first; only the runtime columns vary.
+ * Experiments with a runtime column are timed: their cells run one at a
+ * time after the concurrent phase, so no other cell competes for the CPU
+ * while they are measured. Before anything is timed the selectors run a few warm-up rounds on a
+ * small graph so the first cells do not measure the interpreter.
+ */
 public class ExperimentRunner {
+    private static final int GRAPH_SEED = 42;
     private String outDir;
-    private GraphGenerator gen;
+    private final int cores;
+    private int warmupIterations = 2;
+    private ExecutorService pool;
+    private final ConcurrentHashMap<String, FutureTask<CompactGraph>> graphs = new ConcurrentHashMap<>();
 
     public ExperimentRunner(String dir) {
+        this(dir, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Runs at most cores cells at a time, each on one thread. */
+    public ExperimentRunner(String dir, int cores) {
+        if (cores < 1) throw new IllegalArgumentException("need at least one core");
         this.outDir = dir;
-        this.gen = new GraphGenerator(42);
+        this.cores = cores;
         new File(dir).mkdirs();
     }
 
-    public void exp1Scaling() throws Exception {
-        System.out.println("\nEXP 1: Scaling Analysis");
-        PrintWriter w = new PrintWriter(outDir + "/exp1_scaling.csv");
-        w.println("graph,n,m,k,algorithm,runtime,spread,evaluations");
+    public void setWarmupIterations(int iterations) {
+        if (iterations < 0) throw new IllegalArgumentException("iterations must be >= 0");
+        warmupIterations = iterations;
+    }
 
-        for (int n : new int[]{50, 100, 200, 500}) {
-            System.out.println("  Testing n=" + n);
-            InfluenceMaximization im = gen.generateBarabasiAlbert(n, 3, "IC");
-            long start = System.currentTimeMillis();
-            InfluenceMaximization.Result r = im.celfIM(10, 500, false);
-            double time = (System.currentTimeMillis() - start) / 1000.0;
-            double spread = r.history.get(r.history.size()-1).totalSpread;
-            w.printf("BA_%d,%d,%d,10,CELF,%.2f,%.2f,%d\n",
-                     n, n, im.getNumEdges(), time, spread, r.totalEvaluations);
+    /**
+     * The graph for a key, built on first use by a generator seeded with
+     * seed; every caller gets a fresh instance over the shared CompactGraph.
+     */
+    private InfluenceMaximization graph(String family, String model, int seed, int n, double param1, double param2)
+            throws Exception {
+        String key = family + "/" + model + "/" + seed + "/" + n + "/" + param1 + "/" + param2;
+        FutureTask<CompactGraph> task = new FutureTask<>(() -> {
+            GraphGenerator gen = new GraphGenerator(seed);
+            switch (family) {
+                case "BA": return gen.generateBarabasiAlbert(n, (int) param1, model).getGraph();
+                case "WS": return gen.generateWattsStrogatz(n, (int) param1, param2, model).getGraph();
+                case "ER": return gen.generateErdosRenyi(n, param1, model).getGraph();
+                default: throw new IllegalArgumentException("unknown family: " + family);
+            }
+        });
+        FutureTask<CompactGraph> prior = graphs.putIfAbsent(key, task);
+        if (prior == null) {
+            task.run();
+            prior = task;
         }
-        w.close();
-        System.out.println("  ✓ Saved exp1_scaling.csv");
+        return new InfluenceMaximization(model, seed, prior.get());
     }
 
-    public void exp2Comparison() throws Exception {
-        System.out.println("\nEXP 2: Greedy vs CELF");
-        PrintWriter w = new PrintWriter(outDir + "/exp2_comparison.csv");
-        w.println("k,algorithm,runtime,evaluations,spread");
+    private InfluenceMaximization ba(int n, int m, String model) throws Exception {
+        return graph("BA", model, GRAPH_SEED, n, m, 0);
+    }
+
+    /**
+     * One CSV file: rows produced by independent cells, written in cell
+     * order. Cells of an untimed experiment are submitted at once; those of
+     * a timed one wait until write() and then run one at a time.
+     */
+    private final class Experiment {
+        final String file, header;
+        final boolean timed;
+        final List<Future<List<String>>> cells = new ArrayList<>();
+        final List<Callable<List<String>>> serial = new ArrayList<>();
+
+        Experiment(String file, String header) {
+            this.file = file;
+            this.header = header;
+            this.timed = Arrays.asList(header.split(",")).contains("runtime");
+        }
+
+        void cell(Callable<List<String>> rows) {
+            if (timed) serial.add(rows);
+            else cells.add(pool.submit(rows));
+        }
+
+        /** Waits for every cell and only then creates the file, so a failed cell leaves none behind. */
+        void write() throws Exception {
+            List<String> rows = new ArrayList<>();
+            for (Future<List<String>> cell : cells) rows.addAll(cell.get());
+            for (Callable<List<String>> cell : serial) rows.addAll(pool.submit(cell).get());
+            try (PrintWriter w = new PrintWriter(outDir + "/" + file)) {
+                w.println(header);
+                for (String row : rows) w.print(row);
+            }
+            System.out.println("  ✓ Saved " + file);
+        }
+    }
+
+    private List<Experiment> scaling() {
+        Experiment e = new Experiment("exp1_scaling.csv", "graph,n,m,k,algorithm,runtime,spread,evaluations");
+        for (int n : new int[]{50, 100, 200, 500}) {
+            e.cell(() -> {
+                System.out.println("  EXP 1: n=" + n);
+                InfluenceMaximization im = ba(n, 3, "IC");
+                long start = System.currentTimeMillis();
+                InfluenceMaximization.Result r = im.celfIM(10, 500, false);
+                double time = (System.currentTimeMillis() - start) / 1000.0;
+                double spread = r.history.get(r.history.size()-1).totalSpread;
+                return List.of(String.format("BA_%d,%d,%d,10,CELF,%.2f,%.2f,%d\n",
+                    n, n, im.getNumEdges(), time, spread, r.totalEvaluations));
+            });
+        }
+        return List.of(e);
+    }
 
+    private List<Experiment> comparison() {
+        Experiment e = new Experiment("exp2_comparison.csv", "k,algorithm,runtime,evaluations,spread");
         for (int k : new int[]{5, 10, 15, 20}) {
-            System.out.println("  k=" + k);
-            InfluenceMaximization im1 = gen.generateBarabasiAlbert(200, 3, "IC");
-            long s1 = System.currentTimeMillis();
-            InfluenceMaximization.Result r1 = im1.greedyIM(k, 300, false);
-            double t1 = (System.currentTimeMillis() - s1) / 1000.0;
-
-            InfluenceMaximization im2 = gen.generateBarabasiAlbert(200, 3, "IC");
-            long s2 = System.currentTimeMillis();
-            InfluenceMaximization.Result r2 = im2.celfIM(k, 300, false);
-            double t2 = (System.currentTimeMillis() - s2) / 1000.0;
-
-            w.printf("%d,Greedy,%.2f,%d,%.2f\n", k, t1, r1.totalEvaluations,
-                     r1.history.get(r1.history.size()-1).totalSpread);
-            w.printf("%d,CELF,%.2f,%d,%.2f\n", k, t2, r2.totalEvaluations,
-                     r2.history.get(r2.history.size()-1).totalSpread);
+            // Both algorithms on the same graph, each with its own instance
+            e.cell(() -> {
+                System.out.println("  EXP 2: k=" + k + " Greedy");
+                InfluenceMaximization im = ba(200, 3, "IC");
+                long s = System.currentTimeMillis();
+                InfluenceMaximization.Result r = im.greedyIM(k, 300, false);
+                double t = (System.currentTimeMillis() - s) / 1000.0;
+                return List.of(String.format("%d,Greedy,%.2f,%d,%.2f\n", k, t, r.totalEvaluations,
+                    r.history.get(r.history.size()-1).totalSpread));
+            });
+            e.cell(() -> {
+                System.out.println("  EXP 2: k=" + k + " CELF");
+                InfluenceMaximization im = ba(200, 3, "IC");
+                long s = System.currentTimeMillis();
+                InfluenceMaximization.Result r = im.celfIM(k, 300, false);
+                double t = (System.currentTimeMillis() - s) / 1000.0;
+                return List.of(String.format("%d,CELF,%.2f,%d,%.2f\n", k, t, r.totalEvaluations,
+                    r.history.get(r.history.size()-1).totalSpread));
+            });
         }
-        w.close();
-        System.out.println("  ✓ Saved exp2_comparison.csv");
+        return List.of(e);
     }
 
-    public void exp3Spread() throws Exception {
-        System.out.println("\nEXP 3: Influence Spread");
+    private List<Experiment> spread() {
+        List<Experiment> out = new ArrayList<>();
         for (String model : new String[]{"IC", "LT"}) {
-            InfluenceMaximization im = gen.generateBarabasiAlbert(200, 3, model);
-            InfluenceMaximization.Result r = im.celfIM(30, 500, false);
+            Experiment e = new Experiment("exp3_spread_" + model + ".csv", "k,spread,marginal_gain");
+            e.cell(() -> {
+                System.out.println("  EXP 3: " + model);
+                InfluenceMaximization.Result r = ba(200, 3, model).celfIM(30, 500, false);
+                List<String> rows = new ArrayList<>();
+                for (InfluenceMaximization.IterationHistory h : r.history) {
+                    rows.add(String.format("%d,%.2f,%.2f\n", h.iteration, h.totalSpread, h.marginalGain));
+                }
+                return rows;
+            });
+            out.add(e);
+        }
+        return out;
+    }
+
+    private List<Experiment> networks() {
+        Experiment e = new Experiment("exp4_network_types.csv", "network,n,m,avg_degree,spread,spread_percent");
+        String[] names = {"BA_100", "WS_100", "ER_100"};
+        for (int i = 0; i < 3; i++) {
+            int net = i;
+            e.cell(() -> {
+                System.out.println("  EXP 4: " + names[net]);
+                InfluenceMaximization im = net == 0 ? ba(100, 3, "IC")
+                    : net == 1 ? graph("WS", "IC", GRAPH_SEED, 100, 6, 0.3)
+                    : graph("ER", "IC", GRAPH_SEED, 100, 0.05, 0);
+                InfluenceMaximization.Result r = im.celfIM(15, 500, false);
+                double spread = r.history.get(r.history.size()-1).totalSpread;
+                return List.of(String.format("%s,100,%d,%.2f,%.2f,%.2f\n", names[net], im.getNumEdges(),
+                    2.0*im.getNumEdges()/100, spread, 100*spread/100));
+            });
+        }
+        return List.of(e);
+    }
 
-            PrintWriter w = new PrintWriter(outDir + "/exp3_spread_" + model + ".csv");
-            w.println("k,spread,marginal_gain");
-            for (InfluenceMaximization.IterationHistory h : r.history) {
-                w.printf("%d,%.2f,%.2f\n", h.iteration, h.totalSpread, h.marginalGain);
+    private List<Experiment> imm() {
+        Experiment e = new Experiment("exp5_imm.csv", "n,k,algorithm,runtime,evaluations,spread");
+        for (int n : new int[]{200, 500}) {
+            e.cell(() -> {
+                System.out.println("  EXP 5: n=" + n);
+                InfluenceMaximization im = ba(n, 3, "IC");
+                InfluenceMaximization.Result r1 = im.celfIM(10, 300, false);
+                InfluenceMaximization.Result r2 = im.immIM(10, 0.1, 1.0 / n, false);
+
+                // Score both seed sets with the same simulator
+                return List.of(
+                    String.format("%d,10,CELF,%.2f,%d,%.2f\n", n, r1.totalTime, r1.totalEvaluations,
+                        im.estimateInfluence(r1.seeds, 1000)),
+                    String.format("%d,10,IMM,%.2f,%d,%.2f\n", n, r2.totalTime, r2.totalEvaluations,
+                        im.estimateInfluence(r2.seeds, 1000)));
+            });
+        }
+        return List.of(e);
+    }
+
+    private List<Experiment> heuristics() {
+        Experiment e = new Experiment("exp6_heuristics.csv", "n,k,algorithm,runtime,spread");
+        for (int n : new int[]{500, 5000}) {
+            e.cell(() -> {
+                System.out.println("  EXP 6: n=" + n);
+                InfluenceMaximization im = ba(n, 3, "IC");
+                Map<String, InfluenceMaximization.Result> runs = new LinkedHashMap<>();
+                runs.put("DegreeDiscount", im.degreeDiscountIM(20, false));
+                runs.put("PageRank", im.pageRankIM(20, false));
+                runs.put("PMIA", im.pmiaIM(20, 1.0 / 320, false));
+                runs.put("IMM", im.immIM(20, 0.1, 1.0 / n, false));
+                // Simulation-based greedy only at the small size
+                if (n <= 500) runs.put("CELF", im.celfIM(20, 300, false));
+
+                List<String> rows = new ArrayList<>();
+                for (Map.Entry<String, InfluenceMaximization.Result> r : runs.entrySet()) {
+                    rows.add(String.format("%d,20,%s,%.3f,%.2f\n", n, r.getKey(), r.getValue().totalTime,
+                        im.estimateInfluence(r.getValue().seeds, 1000)));
+                }
+                return rows;
+            });
+        }
+        return List.of(e);
+    }
+
+    /**
+     * Runs every selector the suite times on a small graph of each model,
+     * so the timed cells start with compiled code. Warm-up graphs use their
+     * own seed and are not shared with the cells.
+     */
+    private void warmUp() throws Exception {
+        if (warmupIterations == 0) return;
+        System.out.println("\nWarm-up: " + warmupIterations + " rounds");
+        List<Future<?>> rounds = new ArrayList<>();
+        for (int i = 0; i < warmupIterations; i++) {
+            for (String model : new String[]{"IC", "LT"}) {
+                rounds.add(pool.submit(() -> {
+                    InfluenceMaximization im = new GraphGenerator(GRAPH_SEED + 1).generateBarabasiAlbert(200, 3, model);
+                    im.greedyIM(2, 100, false);
+                    im.celfIM(10, 300, false);
+                    im.immIM(10, 0.1, 1.0 / 200, false);
+                    im.degreeDiscountIM(10, false);
+                    im.pageRankIM(10, false);
+                    im.pmiaIM(10, 1.0 / 320, false);
+                    im.estimateInfluence(im.degreeDiscountIM(10, false).seeds, 1000);
+                    return null;
+                }));
             }
-            w.close();
-            System.out.println("  ✓ Saved exp3_spread_" + model + ".csv");
         }
+        for (Future<?> f : rounds) f.get();
+    }
+
+    // Builds an experiment's files and submits its cells; called once the pool exists
+    private interface Plan { List<Experiment> build(); }
+
+    /**
+     * Warms up, runs the untimed cells of all plans together and writes
+     * their files, then runs the timed experiments' cells one at a time.
+     */
+    private void run(Plan... plans) throws Exception {
+        pool = Executors.newFixedThreadPool(cores);
+        try {
+            warmUp();
+            System.out.println("\nScheduling on " + cores + " core(s)");
+            List<Experiment> all = new ArrayList<>();
+            for (Plan p : plans) all.addAll(p.build());
+            for (Experiment e : all) if (!e.timed) e.write();
+            for (Experiment e : all) if (e.timed) e.write();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public void exp1Scaling() throws Exception {
+        System.out.println("\nEXP 1: Scaling Analysis");
+        run(this::scaling);
+    }
+
+    public void exp2Comparison() throws Exception {
+        System.out.println("\nEXP 2: Greedy vs CELF");
+        run(this::comparison);
+    }
+
+    public void exp3Spread() throws Exception {
+        System.out.println("\nEXP 3: Influence Spread");
+        run(this::spread);
     }
 
     public void exp4Networks() throws Exception {
         System.out.println("\nEXP 4: Network Types");
-        PrintWriter w = new PrintWriter(outDir + "/exp4_network_types.csv");
-        w.println("network,n,m,avg_degree,spread,spread_percent");
-
-        InfluenceMaximization[] ims = {
-            gen.generateBarabasiAlbert(100, 3, "IC"),
-            gen.generateWattsStrogatz(100, 6, 0.3, "IC"),
-            gen.generateErdosRenyi(100, 0.05, "IC")
-        };
-        String[] names = {"BA_100", "WS_100", "ER_100"};
+        run(this::networks);
+    }
 
-        for (int i = 0; i < 3; i++) {
-            InfluenceMaximization.Result r = ims[i].celfIM(15, 500, false);
-            double spread = r.history.get(r.history.size()-1).totalSpread;
-            w.printf("%s,100,%d,%.2f,%.2f,%.2f\n", names[i], ims[i].getNumEdges(),
-                     2.0*ims[i].getNumEdges()/100, spread, 100*spread/100);
-        }
-        w.close();
-        System.out.println("  ✓ Saved exp4_network_types.csv");
+    public void exp5IMM() throws Exception {
+        System.out.println("\nEXP 5: IMM vs CELF");
+        run(this::imm);
+    }
+
+    public void exp6Heuristics() throws Exception {
+        System.out.println("\nEXP 6: Heuristic selectors");
+        run(this::heuristics);
     }
 
     public void runAll() throws Exception {
@@ -101,20 +315,19 @@ public class ExperimentRunner {
         System.out.println("# RUNNING ALL EXPERIMENTS");
         System.out.println("#".repeat(60));
 
-        exp1Scaling();
-        exp2Comparison();
-        exp3Spread();
-        exp4Networks();
+        long start = System.currentTimeMillis();
+        run(this::scaling, this::comparison, this::spread, this::networks, this::imm, this::heuristics);
 
         System.out.println("\n" + "=".repeat(60));
-        System.out.println("✓ ALL EXPERIMENTS COMPLETE!");
+        System.out.printf("✓ ALL EXPERIMENTS COMPLETE! (%.1fs)\n", (System.currentTimeMillis() - start) / 1000.0);
         System.out.println("  Results saved to: " + outDir + "/");
         System.out.println("=".repeat(60));
     }
 
     public static void main(String[] args) {
         try {
-            new ExperimentRunner("results").runAll();
+            int cores = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+            new ExperimentRunner("results", cores).runAll();
         } catch (Exception e) {
             e.printStackTrace();
             System.exit(1);
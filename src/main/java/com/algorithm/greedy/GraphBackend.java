@@ -0,0 +1,45 @@
+package com.algorithm.greedy;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Graph storage outside CompactGraph's heap arrays that runs its own
+ * cascades, so InfluenceMaximization can estimate spreads and run greedyIM
+ * and celfIM without the adjacency ever being copied onto the heap. The
+ * off-heap implementation, OffHeapGraph, lives in src/main/java22 and is
+ * only built on JDK 22+ (profile ffm); GraphIO.mapOffHeap finds it
+ * reflectively so the rest of the tree still builds at release 11.
+ */
+interface GraphBackend extends AutoCloseable {
+    int numNodes();
+
+    long numEdges();
+
+    /** Dense id of an original node id, or -1 if the node is not in the graph. */
+    int denseId(int id);
+
+    int nodeId(int v);
+
+    boolean hasProbabilities();
+
+    /**
+     * Assigns edge probabilities as the model's assignWeights does on a
+     * CompactGraph: 1/in-degree for weighted cascade, and for LT random
+     * in-weights scaled to sum to 1/1.1, drawn from random in in-row order.
+     * Throws UnsupportedOperationException for a model the backend has no
+     * kernel for.
+     */
+    void assignProbabilities(PropagationModel model, SplittableRandom random);
+
+    /**
+     * Runs numSim cascades of the model from seeds[0..numSeeds) (dense ids)
+     * on rng; returns the summed number of active nodes and adds the
+     * out-edges scanned to edges. Safe to call from several threads.
+     */
+    long simulate(PropagationModel model, int[] seeds, int numSeeds, int numSim, SplittableRandom rng, LongAdder edges);
+
+    /** Releases the graph's memory; the backend must not be used afterwards. */
+    @Override
+    void close();
+}
@@ -1,69 +1,301 @@
 package com.algorithm.greedy;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
+/**
+ * Synthetic graphs for the experiments. Nodes are 0..n-1 and edges are
+ * written straight into a dense-id CompactGraph.Builder; all randomness
+ * comes from the generator's seed, so a GraphGenerator reproduces the
+ * same sequence of graphs.
+ */
 public class GraphGenerator {
-    private Random random;
+    private SplittableRandom random;
 
     public GraphGenerator(int seed) {
-        this.random = new Random(seed);
+        this.random = new SplittableRandom(seed);
     }
 
+    /**
+     * Preferential attachment: a clique on the first m nodes, then every
+     * new node links to m distinct earlier nodes drawn in proportion to
+     * their degree from a flat array of edge endpoints. The clique's edges
+     * are in that array too, so core nodes start with weight m - 1, as in
+     * generateBarabasiAlbertParallel; a one-node core is entered once.
+     * Edges go both ways.
+     */
     public InfluenceMaximization generateBarabasiAlbert(int n, int m, String model) {
-        InfluenceMaximization im = new InfluenceMaximization(model, random.nextInt());
-        for (int i = 0; i < m; i++) {
-            for (int j = i + 1; j < m; j++) {
-                im.addEdge(i, j);
-                im.addEdge(j, i);
+        int seed = random.nextInt();
+        int core = Math.min(m, n);
+        CompactGraph.Builder b = CompactGraph.Builder.dense(n, edgeCapacity(2 * baEdges(n, core, m)));
+        int[] endpoints = new int[edgeCapacity(2 * baEdges(n, core, m) + 1)];
+        int size = 0;
+        for (int i = 0; i < core; i++) {
+            for (int j = i + 1; j < core; j++) {
+                b.addDenseEdge(i, j);
+                b.addDenseEdge(j, i);
+                endpoints[size++] = i;
+                endpoints[size++] = j;
             }
         }
-        List<Integer> targets = new ArrayList<>();
-        for (int i = 0; i < m; i++) targets.add(i);
+        if (size == 0 && core > 0) endpoints[size++] = 0;
 
-        for (int i = m; i < n; i++) {
-            Set<Integer> selected = new HashSet<>();
-            while (selected.size() < m) {
-                selected.add(targets.get(random.nextInt(targets.size())));
+        int[] picked = new int[m];
+        for (int i = core; i < n; i++) {
+            int count = 0;
+            while (count < m) {
+                int t = endpoints[random.nextInt(size)];
+                if (!contains(picked, count, t)) picked[count++] = t;
             }
-            for (int t : selected) {
-                im.addEdge(i, t);
-                im.addEdge(t, i);
-                targets.add(t);
-                targets.add(i);
+            for (int c = 0; c < m; c++) {
+                b.addDenseEdge(i, picked[c]);
+                b.addDenseEdge(picked[c], i);
+                endpoints[size++] = picked[c];
+                endpoints[size++] = i;
             }
         }
-        im.initializePropagationParameters();
-        return im;
+        return new InfluenceMaximization(model, seed, b.build());
+    }
+
+    /**
+     * Parallel preferential attachment (Sanders and Schulz 2016). In the
+     * Batagelj-Brandes edge array slot 2e holds the source of edge e and
+     * slot 2e+1 its target, which copies a uniformly random earlier slot.
+     * That choice is a hash of (seed, e, attempt) rather than a draw from a
+     * shared generator, so any edge can be resolved on its own by following
+     * target slots back; nodes are split into chunks across threads and
+     * the graph is the same for every thread count. A draw that would give
+     * a self-loop or repeat one of the node's targets is redrawn. The core
+     * clique's edges hold slots like any other, so the degree weighting
+     * matches generateBarabasiAlbert.
+     */
+    public InfluenceMaximization generateBarabasiAlbertParallel(int n, int m, String model, int threads) {
+        if (m < 1) throw new IllegalArgumentException("m must be >= 1");
+        int seed = random.nextInt();
+        long hashSeed = random.nextLong();
+        int core = Math.min(m, n);
+        long coreEdges = (long) core * (core - 1) / 2;
+        int[] targets = new int[edgeCapacity((long) (n - core) * m)];
+        Arrays.fill(targets, -1);
+
+        BarabasiAlbertSlots slots = new BarabasiAlbertSlots(core, m, coreEdges, hashSeed, targets);
+        int chunks = Math.max(1, Math.min(n - core, threads * 8));
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+                long from = core + (long) (n - core) * c / chunks, to = core + (long) (n - core) * (c + 1) / chunks;
+                for (long e = coreEdges + (from - core) * m; e < coreEdges + (to - core) * m; e++) slots.target(e);
+            })).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        CompactGraph.Builder b = CompactGraph.Builder.dense(n, edgeCapacity(2 * baEdges(n, core, m)));
+        for (int i = 0; i < core; i++) {
+            for (int j = i + 1; j < core; j++) {
+                b.addDenseEdge(i, j);
+                b.addDenseEdge(j, i);
+            }
+        }
+        for (int e = 0; e < targets.length; e++) {
+            int i = core + e / m;
+            b.addDenseEdge(i, targets[e]);
+            b.addDenseEdge(targets[e], i);
+        }
+        return new InfluenceMaximization(model, seed, b.build());
+    }
+
+    /** Slot resolution for generateBarabasiAlbertParallel; memoized targets may be shared racily. */
+    private static final class BarabasiAlbertSlots {
+        final int core, m;
+        final long coreEdges, seed;
+        final int[] targets;
+
+        BarabasiAlbertSlots(int core, int m, long coreEdges, long seed, int[] targets) {
+            this.core = core; this.m = m; this.coreEdges = coreEdges; this.seed = seed; this.targets = targets;
+        }
+
+        int source(long e) {
+            if (e >= coreEdges) return (int) (core + (e - coreEdges) / m);
+            // Core clique edges enumerate the pairs (i, j), i < j, in order
+            int i = 0;
+            long rest = e;
+            while (rest >= core - 1 - i) rest -= core - 1 - i++;
+            return i;
+        }
+
+        int coreTarget(long e) {
+            int i = source(e);
+            long first = (long) i * (2L * core - i - 1) / 2;
+            return (int) (i + 1 + e - first);
+        }
+
+        int target(long e) {
+            if (e < coreEdges) return coreTarget(e);
+            int memo = targets[(int) (e - coreEdges)];
+            if (memo >= 0) return memo;
+            int i = source(e);
+            long firstSibling = coreEdges + (long) (i - core) * m;
+            long h = InfluenceMaximization.mix64(seed + InfluenceMaximization.GOLDEN_GAMMA * e);
+            int t;
+            for (int attempt = 0; ; attempt++) {
+                long r = e == 0 ? 0 : (InfluenceMaximization.mix64(h + attempt) >>> 1) % (2 * e);
+                t = e == 0 ? 0 : (r & 1) == 0 ? source(r >>> 1) : target(r >>> 1);
+                if (t == i) continue;
+                boolean repeat = false;
+                for (long s = firstSibling; s < e && !repeat; s++) repeat = target(s) == t;
+                if (!repeat) break;
+            }
+            targets[(int) (e - coreEdges)] = t;
+            return t;
+        }
     }
 
+    private static long baEdges(int n, int core, int m) {
+        return (long) core * (core - 1) / 2 + (long) (n - core) * m;
+    }
+
+    private static boolean contains(int[] a, int size, int x) {
+        for (int i = 0; i < size; i++) if (a[i] == x) return true;
+        return false;
+    }
+
+    private static int edgeCapacity(long edges) {
+        if (edges > Integer.MAX_VALUE - 16) throw new IllegalArgumentException("too many edges: " + edges);
+        return (int) edges;
+    }
+
+    /**
+     * Watts-Strogatz: a ring where each node links to its k/2 nearest
+     * neighbours on either side, after which every lattice edge (i, i+j) is
+     * rewired with probability p to (i, w) for a uniform w that is neither
+     * i nor already adjacent to i. Edges go both ways.
+     */
     public InfluenceMaximization generateWattsStrogatz(int n, int k, double p, String model) {
-        InfluenceMaximization im = new InfluenceMaximization(model, random.nextInt());
+        int seed = random.nextInt();
+        int half = k / 2;
+        int count = edgeCapacity((long) n * half);
+        // Edge (i, i+j) is stored at (j-1)*n + i and rewired in that order, ring by ring
+        int[] target = new int[count];
+        LongSet present = new LongSet(count);
+        for (int j = 1; j <= half; j++) {
+            for (int i = 0; i < n; i++) {
+                target[(j - 1) * n + i] = (i + j) % n;
+                present.add(pair(i, (i + j) % n, n));
+            }
+        }
+        for (int e = 0; e < count; e++) {
+            if (random.nextDouble() >= p) continue;
+            int i = e % n, old = target[e];
+            if (present.size >= (long) n * (n - 1) / 2) break;
+            int w;
+            do {
+                w = random.nextInt(n);
+            } while (w == i || present.contains(pair(i, w, n)));
+            present.remove(pair(i, old, n));
+            present.add(pair(i, w, n));
+            target[e] = w;
+        }
+
+        CompactGraph.Builder b = CompactGraph.Builder.dense(n, edgeCapacity(2L * count));
         for (int i = 0; i < n; i++) {
-            for (int j = 1; j <= k / 2; j++) {
-                int target = (i + j) % n;
-                im.addEdge(i, target);
-                im.addEdge(target, i);
+            for (int j = 1; j <= half; j++) {
+                int w = target[(j - 1) * n + i];
+                b.addDenseEdge(i, w);
+                b.addDenseEdge(w, i);
             }
         }
-        im.initializePropagationParameters();
-        return im;
+        return new InfluenceMaximization(model, seed, b.build());
     }
 
-    public InfluenceMaximization generateErdosRenyi(int n, double p, String model) {
-        InfluenceMaximization im = new InfluenceMaximization(model, random.nextInt());
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                if (i != j && random.nextDouble() < p) {
-                    im.addEdge(i, j);
+    private static long pair(int u, int v, int n) {
+        return u < v ? (long) u * n + v : (long) v * n + u;
+    }
+
+    /** Open-addressing set of non-negative longs with backward-shift deletion. */
+    private static final class LongSet {
+        private long[] slots;
+        private int mask;
+        long size;
+
+        LongSet(int expected) {
+            int cap = 16;
+            while (cap < expected * 2L && cap < (1 << 30)) cap <<= 1;
+            slots = new long[cap];
+            Arrays.fill(slots, -1);
+            mask = cap - 1;
+        }
+
+        private int slot(long key) {
+            return (int) InfluenceMaximization.mix64(key) & mask;
+        }
+
+        boolean contains(long key) {
+            for (int i = slot(key); slots[i] != -1; i = (i + 1) & mask) if (slots[i] == key) return true;
+            return false;
+        }
+
+        void add(long key) {
+            int i = slot(key);
+            for (; slots[i] != -1; i = (i + 1) & mask) if (slots[i] == key) return;
+            slots[i] = key;
+            if (++size * 2 > slots.length) grow();
+        }
+
+        void remove(long key) {
+            int i = slot(key);
+            while (slots[i] != key) {
+                if (slots[i] == -1) return;
+                i = (i + 1) & mask;
+            }
+            size--;
+            // Pull later entries of the probe run back over the hole
+            for (int j = (i + 1) & mask; slots[j] != -1; j = (j + 1) & mask) {
+                int home = slot(slots[j]);
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    slots[i] = slots[j];
+                    i = j;
                 }
             }
+            slots[i] = -1;
         }
-        im.initializePropagationParameters();
-        return im;
+
+        private void grow() {
+            long[] old = slots;
+            slots = new long[old.length * 2];
+            Arrays.fill(slots, -1);
+            mask = slots.length - 1;
+            size = 0;
+            for (long key : old) if (key != -1) add(key);
+        }
+    }
+
+    /**
+     * G(n, p) on ordered pairs: instead of a coin per pair, the gap to the
+     * next edge is drawn from the geometric distribution, so the cost is
+     * O(n + m) rather than O(n^2).
+     */
+    public InfluenceMaximization generateErdosRenyi(int n, double p, String model) {
+        int seed = random.nextInt();
+        long pairs = (long) n * (n - 1);
+        CompactGraph.Builder b = CompactGraph.Builder.dense(n, edgeCapacity(Math.min(pairs, (long) (p * pairs * 1.05) + 16)));
+        if (p > 0) {
+            double logQ = Math.log1p(-Math.min(p, 1));
+            for (long idx = -1; ; ) {
+                double skip = p >= 1 ? 0 : Math.floor(Math.log(1 - random.nextDouble()) / logQ);
+                if (skip >= pairs - idx - 1) break;
+                idx += 1 + (long) skip;
+                // Pair index runs over (i, j), j != i, in row order
+                int i = (int) (idx / (n - 1)), j = (int) (idx % (n - 1));
+                b.addDenseEdge(i, j >= i ? j + 1 : j);
+            }
+        }
+        return new InfluenceMaximization(model, seed, b.build());
     }
 
     public InfluenceMaximization generateSmallGraph(String model) {
         InfluenceMaximization im = new InfluenceMaximization(model, 42);
-        int[][] edges = {{0,1}, {0,2}, {1,3}, {2,3}, {3,4}, {3,5}, 
+        int[][] edges = {{0,1}, {0,2}, {1,3}, {2,3}, {3,4}, {3,5},
                         {4,6}, {5,6}, {1,7}, {2,7}, {7,8}, {8,9}};
         for (int[] e : edges) im.addEdge(e[0], e[1]);
         im.initializePropagationParameters();
@@ -0,0 +1,245 @@
+package com.algorithm.greedy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Graph loading and persistence for InfluenceMaximization.
+ *
+ * Text input is a SNAP-style edge list: one "u v" pair per line, separated
+ * by spaces, tabs or commas, with '#' or '%' comment lines; extra columns
+ * are ignored. It is parsed byte by byte from a direct NIO buffer, so no
+ * String is created per line.
+ *
+ * The binary format is the CompactGraph layout, little-endian:
+ *   long magic, int version, int flags (bit 0: probabilities present),
+ *   int n, int m, then int[] nodeIds(n), outOffsets(n+1), outTargets(m),
+ *   inOffsets(n+1), inSources(m), inToOut(m), zero-padded to 8 bytes,
+ *   then optionally double[] outProbs(m).
+ * It is read back through FileChannel.map with bulk copies into the arrays,
+ * so reopening a graph skips parsing and CSR construction entirely.
+ */
+public class GraphIO {
+    static final long MAGIC = 0x5253434D49L;   // "IMCSR"
+    static final int VERSION = 1;
+    static final int FLAG_PROBABILITIES = 1;
+    static final int HEADER_BYTES = 24;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int MAP_WINDOW = 1 << 30;
+
+    public static CompactGraph readEdgeList(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            int expectedEdges = (int) Math.min(Integer.MAX_VALUE - 16, Math.max(16, size / 10));
+            CompactGraph.Builder b = new CompactGraph.Builder(expectedEdges / 4, expectedEdges);
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+            long value = 0;
+            int field = 0, first = 0;
+            boolean inNumber = false, negative = false, skipLine = false, lineStart = true;
+            long line = 1;
+            while (true) {
+                buf.clear();
+                int read = ch.read(buf);
+                if (read < 0) break;
+                buf.flip();
+                while (buf.hasRemaining()) {
+                    byte c = buf.get();
+                    if (c == '\n' || c == '\r') {
+                        if (inNumber) {
+                            if (field == 1) b.addEdge(first, (int) value);
+                            field++;
+                        }
+                        if (!skipLine && field == 1) {
+                            throw new IOException(path + ":" + line + ": expected two node ids");
+                        }
+                        if (c == '\n') line++;
+                        value = 0; field = 0;
+                        inNumber = negative = skipLine = false;
+                        lineStart = true;
+                        continue;
+                    }
+                    if (skipLine) continue;
+                    // Indentation before a comment marker or the first id is not content
+                    if (lineStart && (c == ' ' || c == '\t')) continue;
+                    if (lineStart && (c == '#' || c == '%')) {
+                        skipLine = true;
+                        continue;
+                    }
+                    lineStart = false;
+                    if (c >= '0' && c <= '9') {
+                        // Negative ids accumulate downwards so Integer.MIN_VALUE fits;
+                        // checking every digit keeps value far from long overflow
+                        value = value * 10 + (negative ? '0' - c : c - '0');
+                        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+                            throw new IOException(path + ":" + line + ": node id out of range");
+                        }
+                        inNumber = true;
+                    } else if (c == '-' && !inNumber) {
+                        negative = true;
+                    } else if (c == ' ' || c == '\t' || c == ',') {
+                        if (inNumber) {
+                            if (field == 0) first = (int) value;
+                            else if (field == 1) b.addEdge(first, (int) value);
+                            field++;
+                            // Weights or timestamps after the endpoints are ignored
+                            if (field >= 2) skipLine = true;
+                        }
+                        value = 0;
+                        inNumber = negative = false;
+                    } else if (field < 2) {
+                        throw new IOException(path + ":" + line + ": unexpected character '" + (char) c + "'");
+                    }
+                }
+            }
+            if (inNumber && field == 1) b.addEdge(first, (int) value);
+            else if (inNumber && field == 0) throw new IOException(path + ":" + line + ": expected two node ids");
+            return b.build();
+        }
+    }
+
+    /** Loads a text edge list and assigns propagation probabilities for model. */
+    public static InfluenceMaximization loadEdgeList(Path path, String model, int seed) throws IOException {
+        return new InfluenceMaximization(model, seed, readEdgeList(path));
+    }
+
+    public static void writeBinary(CompactGraph graph, Path path) throws IOException {
+        CompactGraph g = graph.compacted();
+        boolean probs = g.hasProbabilities();
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(MAGIC).putInt(VERSION).putInt(probs ? FLAG_PROBABILITIES : 0)
+                  .putInt(g.numNodes).putInt(g.numEdges).flip();
+            ch.write(header, 0);
+
+            long pos = HEADER_BYTES;
+            for (int[] a : new int[][]{g.nodeIds, g.outOffsets, g.outTargets,
+                                        g.inOffsets, g.inSources, g.inToOut}) {
+                pos = transferInts(ch, pos, a, true);
+            }
+            if (probs) transferDoubles(ch, probabilityOffset(g.numNodes, g.numEdges), g.outProbs, true);
+        }
+    }
+
+    public static CompactGraph readBinary(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && ch.read(header, header.position()) > 0) { }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getLong() != MAGIC) {
+                throw new IOException(path + ": not a binary CSR graph");
+            }
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException(path + ": unsupported version " + version);
+            int flags = header.getInt();
+            int n = header.getInt(), m = header.getInt();
+            checkSize(path, flags, n, m, ch.size());
+
+            int[] nodeIds = new int[n], outOffsets = new int[n + 1], outTargets = new int[m];
+            int[] inOffsets = new int[n + 1], inSources = new int[m], inToOut = new int[m];
+            long pos = HEADER_BYTES;
+            for (int[] a : new int[][]{nodeIds, outOffsets, outTargets, inOffsets, inSources, inToOut}) {
+                pos = transferInts(ch, pos, a, false);
+            }
+            double[] probs = null;
+            if ((flags & FLAG_PROBABILITIES) != 0) {
+                probs = new double[m];
+                transferDoubles(ch, probabilityOffset(n, m), probs, false);
+            }
+            return new CompactGraph(nodeIds, outOffsets, outTargets, inOffsets, inSources, inToOut, probs);
+        }
+    }
+
+    /** Rejects header counts that are negative or need more bytes than the file has. */
+    static void checkSize(Path path, int flags, int n, int m, long fileSize) throws IOException {
+        if (n < 0 || m < 0) throw new IOException(path + ": truncated/corrupt");
+        long size = (flags & FLAG_PROBABILITIES) != 0 ? probabilityOffset(n, m) + 8L * m
+                                                     : HEADER_BYTES + 4 * (3L * n + 3L * m + 2);
+        if (fileSize < size) throw new IOException(path + ": truncated/corrupt");
+    }
+
+    /** Byte offset of the probability block: header plus the int arrays, 8-byte aligned. */
+    static long probabilityOffset(int n, int m) {
+        long ints = 3L * n + 3L * m + 2;
+        return HEADER_BYTES + ((ints * 4 + 7) & ~7L);
+    }
+
+    // A single MappedByteBuffer is limited to 2 GB, so arrays are moved in mapped windows
+
+    private static long transferInts(FileChannel ch, long pos, int[] a, boolean write) throws IOException {
+        for (int from = 0; from < a.length; ) {
+            int len = Math.min(a.length - from, MAP_WINDOW / 4);
+            MappedByteBuffer map = ch.map(write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                                          pos, 4L * len);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (write) map.asIntBuffer().put(a, from, len);
+            else map.asIntBuffer().get(a, from, len);
+            pos += 4L * len;
+            from += len;
+        }
+        return pos;
+    }
+
+    private static void transferDoubles(FileChannel ch, long pos, double[] a, boolean write) throws IOException {
+        for (int from = 0; from < a.length; ) {
+            int len = Math.min(a.length - from, MAP_WINDOW / 8);
+            MappedByteBuffer map = ch.map(write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                                          pos, 8L * len);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (write) map.asDoubleBuffer().put(a, from, len);
+            else map.asDoubleBuffer().get(a, from, len);
+            pos += 8L * len;
+            from += len;
+        }
+    }
+
+    /** Reopens a binary graph; probabilities stored in the file are kept. */
+    public static InfluenceMaximization loadBinary(Path path, String model, int seed) throws IOException {
+        return new InfluenceMaximization(model, seed, readBinary(path));
+    }
+
+    /**
+     * Opens a binary graph off the heap: OffHeapGraph maps the file and the
+     * cascades read it in place, so heap use does not grow with the graph.
+     * Probabilities stored in the file are kept. Needs the JDK 22 build
+     * (profile ffm); elsewhere throws UnsupportedOperationException.
+     * The mapping itself is not limited by the JVM, but the id index,
+     * cascade scratch and any assigned probabilities are allocated and
+     * count against -XX:MaxDirectMemorySize, which defaults to -Xmx.
+     */
+    public static InfluenceMaximization mapOffHeap(Path path, String model, int seed) throws IOException {
+        return new InfluenceMaximization(model, seed, offHeap("map", Path.class, path));
+    }
+
+    /** Copies a heap graph into off-heap memory, as mapOffHeap does for files. */
+    public static InfluenceMaximization copyOffHeap(CompactGraph graph, String model, int seed) {
+        try {
+            return new InfluenceMaximization(model, seed, offHeap("copyOf", CompactGraph.class, graph));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // OffHeapGraph is only compiled on JDK 22+, so it is looked up by name
+    private static GraphBackend offHeap(String factory, Class<?> type, Object arg) throws IOException {
+        try {
+            return (GraphBackend) Class.forName("com.algorithm.greedy.OffHeapGraph")
+                .getDeclaredMethod(factory, type).invoke(null, arg);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new UnsupportedOperationException("off-heap graphs need the JDK 22+ build (mvn -Pffm)");
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+
+/**
+ * Reverse-reachable set seed selection (IMM, Tang et al. 2015).
+ * RR sets are sampled over the reverse CSR arrays and stored flat; the
+ * sample size comes from the IMM martingale bounds and seeds are picked by
+ * greedy maximum coverage. The final selection uses a fresh batch of RR
+ * sets rather than the ones drawn while estimating the lower bound, which
+ * keeps the (1 - 1/e - epsilon) guarantee intact.
+ */
+class IMMSelector {
+    private final CompactGraph g;
+    // The model's reverse sampler; its scratch holds the nodes of the last RR set
+    private final PropagationModel.ReverseSampler sampler;
+    private final SplittableRandom rng;
+    private final int n;
+
+    // Flat RR set storage: set r holds rrNodes[rrOffsets[r] .. rrOffsets[r+1])
+    private int[] rrNodes = new int[1024];
+    private int[] rrOffsets = new int[1025];
+    private int numSets, numEntries;
+
+    IMMSelector(CompactGraph g, PropagationModel model, SplittableRandom rng) {
+        this.g = g;
+        this.sampler = model.reverseSampler(g);
+        this.rng = rng;
+        this.n = g.numNodes;
+    }
+
+    InfluenceMaximization.Result select(int k, double epsilon, double delta, boolean verbose) {
+        if (epsilon <= 0 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("need epsilon > 0 and 0 < delta < 1");
+        }
+        long start = System.currentTimeMillis();
+        k = Math.min(k, n);
+        if (n <= 1) {
+            // log n = 0 would make the sample size infinite; a lone node is its own spread
+            InfluenceMaximization.Result result = new InfluenceMaximization.Result();
+            if (k > 0) {
+                result.seeds.add(g.nodeId(0));
+                InfluenceMaximization.IterationHistory h = new InfluenceMaximization.IterationHistory(
+                    1, g.nodeId(0), 1, 1, (System.currentTimeMillis() - start) / 1000.0, 0);
+                result.history.add(h);
+                if (verbose) System.out.println(h);
+            }
+            result.totalTime = (System.currentTimeMillis() - start) / 1000.0;
+            return result;
+        }
+        double logN = Math.log(n);
+        double ell = Math.log(1 / delta) / logN;
+        ell = ell * (1 + Math.log(2) / logN);
+        double logCnk = logBinomial(n, k);
+
+        // Sampling phase: halve the guess x until the coverage confirms it
+        double epsPrime = Math.sqrt(2) * epsilon;
+        double lambdaPrime = (2 + 2.0 / 3 * epsPrime)
+            * (logCnk + ell * logN + Math.log(Math.max(1, log2(n)))) * n / (epsPrime * epsPrime);
+        double lowerBound = 1;
+        for (int i = 1; i < log2(n); i++) {
+            double x = n / Math.pow(2, i);
+            sample((long) Math.ceil(lambdaPrime / x));
+            double covered = nodeSelection(k, null);
+            if (n * covered / numSets >= (1 + epsPrime) * x) {
+                lowerBound = n * covered / numSets / (1 + epsPrime);
+                break;
+            }
+        }
+
+        double alpha = Math.sqrt(ell * logN + Math.log(2));
+        double beta = Math.sqrt((1 - 1 / Math.E) * (logCnk + ell * logN + Math.log(2)));
+        double lambdaStar = 2 * n * Math.pow((1 - 1 / Math.E) * alpha + beta, 2) / (epsilon * epsilon);
+        long theta = (long) Math.ceil(lambdaStar / lowerBound);
+        long sampled = numSets;
+
+        numSets = 0;
+        numEntries = 0;
+        sample(theta);
+        sampled += numSets;
+
+        InfluenceMaximization.Result result = new InfluenceMaximization.Result();
+        List<int[]> picks = new ArrayList<>();
+        nodeSelection(k, picks);
+
+        double spread = 0;
+        for (int i = 0; i < picks.size(); i++) {
+            int u = picks.get(i)[0];
+            double gain = (double) n * picks.get(i)[1] / numSets;
+            spread += gain;
+            result.seeds.add(g.nodeId(u));
+            InfluenceMaximization.IterationHistory h = new InfluenceMaximization.IterationHistory(
+                i + 1, g.nodeId(u), gain, spread,
+                (System.currentTimeMillis() - start) / 1000.0, (int) Math.min(sampled, Integer.MAX_VALUE));
+            result.history.add(h);
+            if (verbose) System.out.println(h);
+        }
+        result.totalTime = (System.currentTimeMillis() - start) / 1000.0;
+        result.totalEvaluations = (int) Math.min(sampled, Integer.MAX_VALUE);
+        if (verbose) {
+            System.out.printf("\nTotal: %.2fs, %d RR sets (theta=%d)\n",
+                result.totalTime, sampled, theta);
+        }
+        return result;
+    }
+
+    /** Tops the RR collection up to `target` sets. */
+    private void sample(long target) {
+        if (target > Integer.MAX_VALUE - 1) throw new IllegalStateException("too many RR sets: " + target);
+        while (numSets < target) {
+            int size = sampler.sample(rng.nextInt(n), rng);
+            if (numEntries + size > rrNodes.length) {
+                rrNodes = Arrays.copyOf(rrNodes, Math.max(numEntries + size, rrNodes.length * 2));
+            }
+            System.arraycopy(sampler.nodes, 0, rrNodes, numEntries, size);
+            numEntries += size;
+            if (numSets + 2 > rrOffsets.length) rrOffsets = Arrays.copyOf(rrOffsets, rrOffsets.length * 2);
+            rrOffsets[++numSets] = numEntries;
+        }
+    }
+
+    /**
+     * Greedy maximum coverage over the current RR sets. Returns the number
+     * of covered sets; if picks is non-null each pick is added as {node, newlyCovered}.
+     */
+    private double nodeSelection(int k, List<int[]> picks) {
+        int[] degree = new int[n];
+        for (int j = 0; j < numEntries; j++) degree[rrNodes[j]]++;
+
+        // Inverted index node -> RR sets containing it
+        int[] setOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) setOffsets[v + 1] = setOffsets[v] + degree[v];
+        int[] fill = Arrays.copyOf(setOffsets, n);
+        int[] sets = new int[numEntries];
+        for (int r = 0; r < numSets; r++) {
+            for (int j = rrOffsets[r]; j < rrOffsets[r + 1]; j++) sets[fill[rrNodes[j]]++] = r;
+        }
+
+        boolean[] covered = new boolean[numSets];
+        long totalCovered = 0;
+        for (int i = 0; i < k; i++) {
+            int best = 0;
+            for (int v = 1; v < n; v++) if (degree[v] > degree[best]) best = v;
+            int gained = degree[best];
+            for (int j = setOffsets[best]; j < setOffsets[best + 1]; j++) {
+                int r = sets[j];
+                if (covered[r]) continue;
+                covered[r] = true;
+                for (int x = rrOffsets[r]; x < rrOffsets[r + 1]; x++) degree[rrNodes[x]]--;
+            }
+            degree[best] = -1;
+            totalCovered += gained;
+            if (picks != null) picks.add(new int[]{best, gained});
+        }
+        return totalCovered;
+    }
+
+    private static double logBinomial(int n, int k) {
+        double s = 0;
+        for (int i = 0; i < k; i++) s += Math.log((double) (n - i) / (i + 1));
+        return s;
+    }
+
+    private static double log2(int n) {
+        return Math.log(n) / Math.log(2);
+    }
+}
@@ -0,0 +1,43 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+
+/**
+ * Independent Cascade with the same probability p on every edge of a graph
+ * without parameters. See CascadeModel for the kernels.
+ */
+public class IndependentCascade extends CascadeModel {
+    private final double probability;
+
+    public IndependentCascade(double probability) {
+        if (!(probability > 0 && probability <= 1)) throw new IllegalArgumentException("need 0 < p <= 1");
+        this.probability = probability;
+    }
+
+    /** Uniform edge probability, for graphs assigned by this model. */
+    public double probability() { return probability; }
+
+    @Override
+    public String name() { return "IC(" + probability + ")"; }
+
+    @Override
+    public EdgeWeights assignWeights(CompactGraph g, SplittableRandom random) {
+        for (int v = 0; v < g.numNodes; v++) {
+            for (int i = g.inOffsets[v]; i < g.inEnds[v]; i++) g.setInProbability(i, probability);
+        }
+        return keepWeights(g);
+    }
+
+    @Override
+    public EdgeWeights keepWeights(CompactGraph g) {
+        return new EdgeWeights() {
+            @Override
+            public void inEdgeAdded(int v, int slot, SplittableRandom random) {
+                g.setInProbability(slot, probability);
+            }
+
+            @Override
+            public void inEdgeRemoved(int v, double weight) { }
+        };
+    }
+}
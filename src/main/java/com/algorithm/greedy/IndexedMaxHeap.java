@@ -0,0 +1,114 @@
+package com.algorithm.greedy;
+
+import java.util.Arrays;
+
+/**
+ * Binary max-heap over node ids 0..capacity-1 for the lazy greedy
+ * selectors. Keys live in gain[v] with the CELF round tag in iteration[v];
+ * position[v] locates v in the heap, so a node is queued at most once and
+ * a re-evaluation updates its entry in place instead of adding a copy.
+ * Equal gains come out in increasing node order. Nothing is allocated
+ * after construction.
+ */
+final class IndexedMaxHeap {
+    final double[] gain;
+    final int[] iteration;
+    private final int[] heap, position;
+    private int size;
+
+    IndexedMaxHeap(int capacity) {
+        gain = new double[capacity];
+        iteration = new int[capacity];
+        heap = new int[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    int size() { return size; }
+    boolean isEmpty() { return size == 0; }
+    boolean contains(int v) { return position[v] >= 0; }
+
+    /** The queued nodes in heap order, e.g. to save the queue with its gains and iterations. */
+    int[] toArray() { return Arrays.copyOf(heap, size); }
+
+    /** Node with the largest gain. */
+    int peek() { return heap[0]; }
+
+    /** Removes and returns the top; its gain and iteration stay readable. */
+    int poll() {
+        int top = heap[0];
+        position[top] = -1;
+        int last = heap[--size];
+        if (size > 0) {
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /** Queues v with the given key, or moves it if it is already queued. */
+    void push(int v, double g, int iter) {
+        iteration[v] = iter;
+        int i = position[v];
+        if (i < 0) {
+            gain[v] = g;
+            heap[size] = v;
+            position[v] = size;
+            siftUp(size++);
+            return;
+        }
+        double old = gain[v];
+        gain[v] = g;
+        if (g > old) siftUp(i);
+        else siftDown(i);
+    }
+
+    /**
+     * Queues nodes 0..n-1 with gains g[0..n) and round iter in O(n),
+     * replacing whatever was queued.
+     */
+    void fill(double[] g, int n, int iter) {
+        for (int i = 0; i < size; i++) position[heap[i]] = -1;
+        System.arraycopy(g, 0, gain, 0, n);
+        Arrays.fill(iteration, 0, n, iter);
+        for (int v = 0; v < n; v++) {
+            heap[v] = v;
+            position[v] = v;
+        }
+        size = n;
+        for (int i = (n >>> 1) - 1; i >= 0; i--) siftDown(i);
+    }
+
+    private boolean above(int a, int b) {
+        return gain[a] > gain[b] || (gain[a] == gain[b] && a < b);
+    }
+
+    private void siftUp(int i) {
+        int v = heap[i];
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (!above(v, heap[p])) break;
+            heap[i] = heap[p];
+            position[heap[i]] = i;
+            i = p;
+        }
+        heap[i] = v;
+        position[v] = i;
+    }
+
+    private void siftDown(int i) {
+        int v = heap[i];
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= size) break;
+            if (c + 1 < size && above(heap[c + 1], heap[c])) c++;
+            if (!above(heap[c], v)) break;
+            heap[i] = heap[c];
+            position[heap[i]] = i;
+            i = c;
+        }
+        heap[i] = v;
+        position[v] = i;
+    }
+}
@@ -0,0 +1,56 @@
+package com.algorithm.greedy;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder events of the seed selectors. They cost a branch when
+ * no recording is running; enable them with e.g.
+ * -XX:StartFlightRecording:filename=im.jfr and read them back with
+ * jfr print --events com.algorithm.greedy.* im.jfr.
+ */
+final class InfluenceEvents {
+    private InfluenceEvents() { }
+
+    @Name("com.algorithm.greedy.SeedSelection")
+    @Label("Seed Selection")
+    @Category("Influence Maximization")
+    @Description("A greedy selector committed a seed")
+    @StackTrace(false)
+    static final class SeedSelection extends Event {
+        @Label("Algorithm") String algorithm;
+        @Label("Model") String model;
+        @Label("Iteration") int iteration;
+        @Label("Node") int node;
+        @Label("Marginal Gain") double marginalGain;
+        @Label("Total Spread") double totalSpread;
+        @Label("Iteration Time") @Timespan(Timespan.SECONDS) double iterationTime;
+        @Label("Evaluations") int evaluations;
+        @Label("Simulations") long simulations;
+    }
+
+    @Name("com.algorithm.greedy.SpreadEstimate")
+    @Label("Spread Estimate")
+    @Category("Influence Maximization")
+    @Description("Monte Carlo simulations for one or a batch of seed sets")
+    @StackTrace(false)
+    static final class SpreadEstimate extends Event {
+        @Label("Kind") String kind;
+        @Label("Seed Set Size") int seedSetSize;
+        @Label("Seed Sets") int seedSets;
+        @Label("Simulations") long simulations;
+    }
+
+    @Name("com.algorithm.greedy.LazyReevaluation")
+    @Label("Lazy Re-evaluation")
+    @Category("Influence Maximization")
+    @Description("A stale queue entry was re-scored against the current seed set")
+    @StackTrace(false)
+    static final class LazyReevaluation extends Event {
+        @Label("Algorithm") String algorithm;
+        @Label("Iteration") int iteration;
+        @Label("Node") int node;
+        @Label("Stale Gain") double staleGain;
+        @Label("Gain") double gain;
+        @Label("Queue Size") int queueSize;
+    }
+}
@@ -0,0 +1,106 @@
+package com.algorithm.greedy;
+
+import java.net.URI;
+import java.net.http.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load for InfluenceServer: `concurrency` clients each send
+ * /spread queries back to back until `requests` have been sent. Seed sets
+ * are drawn from a pool of `distinctSets` random sets, so a smaller pool
+ * means more identical queries in flight. Reports latency percentiles and
+ * throughput over the whole run.
+ */
+public class InfluenceLoadGenerator {
+    public static final class Report {
+        public int requests, errors;
+        public double p50Millis, p99Millis, maxMillis, throughput;
+
+        public String toString() {
+            return String.format("%d requests (%d errors) | p50 %.2f ms | p99 %.2f ms | max %.2f ms | %.0f req/s",
+                requests, errors, p50Millis, p99Millis, maxMillis, throughput);
+        }
+    }
+
+    /** Sends the queries to base (e.g. http://localhost:8080) and waits for every response. */
+    public static Report run(URI base, int requests, int concurrency, int numSim, int setSize, int distinctSets,
+                             int numNodes, long seed) throws Exception {
+        SplittableRandom rng = new SplittableRandom(seed);
+        String[] paths = new String[distinctSets];
+        for (int i = 0; i < distinctSets; i++) {
+            StringJoiner seeds = new StringJoiner(",");
+            for (int j = 0; j < setSize; j++) seeds.add(Integer.toString(rng.nextInt(numNodes)));
+            paths[i] = "/spread?sims=" + numSim + "&seeds=" + seeds;
+        }
+        int[] order = new int[requests];
+        for (int i = 0; i < requests; i++) order[i] = rng.nextInt(distinctSets);
+
+        ExecutorService clients = InfluenceServer.handlerExecutor();
+        HttpClient http = HttpClient.newBuilder().executor(clients).connectTimeout(Duration.ofSeconds(10)).build();
+        long[] latency = new long[requests];
+        AtomicInteger next = new AtomicInteger(), errors = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < concurrency; c++) {
+            workers.add(clients.submit(() -> {
+                for (int i; (i = next.getAndIncrement()) < requests; ) {
+                    HttpRequest request = HttpRequest.newBuilder(base.resolve(paths[order[i]])).GET().build();
+                    long t = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() != 200) errors.incrementAndGet();
+                    } catch (java.io.IOException e) {
+                        errors.incrementAndGet();
+                    }
+                    latency[i] = System.nanoTime() - t;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> w : workers) w.get();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        clients.shutdown();
+
+        Arrays.sort(latency);
+        Report r = new Report();
+        r.requests = requests;
+        r.errors = errors.get();
+        r.p50Millis = latency[(int) Math.min(requests - 1, Math.ceil(0.50 * requests) - 1)] / 1e6;
+        r.p99Millis = latency[(int) Math.min(requests - 1, Math.ceil(0.99 * requests) - 1)] / 1e6;
+        r.maxMillis = latency[requests - 1] / 1e6;
+        r.throughput = requests / seconds;
+        return r;
+    }
+
+    /**
+     * Args: [requests] [concurrency] [n] [distinct sets]; defaults 2000,
+     * 64, 10000, 200. Starts a server on BA(n, 3) on a free localhost port,
+     * runs the load against it and prints the report and server counters.
+     */
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int n = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        int distinct = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+
+        InfluenceMaximization im = new GraphGenerator(42).generateBarabasiAlbert(n, 3, "IC");
+        im.setParallelism(Runtime.getRuntime().availableProcessors());
+        InfluenceServer server = new InfluenceServer(im, 0);
+        server.start();
+        try {
+            URI base = URI.create("http://localhost:" + server.getPort());
+            System.out.println("Load: " + requests + " requests, " + concurrency + " clients, BA(" + n + ", 3), "
+                + distinct + " distinct seed sets");
+            Report r = run(base, requests, concurrency, 1000, 5, distinct, n, 7);
+            System.out.println(r);
+            System.out.printf("Server: %d coalesced, %d batches, %.1f queries per batch%n",
+                server.getCoalesced(), server.getBatches(),
+                (double) server.getBatchedQueries() / Math.max(1, server.getBatches()));
+        } finally {
+            server.stop();
+        }
+    }
+}
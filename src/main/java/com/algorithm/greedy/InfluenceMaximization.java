@@ -4,119 +4,860 @@ package com.algorithm.greedy;
  * Influence Maximization - Greedy and CELF Algorithms
  * Graduate Algorithm Project - November 2025
  */
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
 
 public class InfluenceMaximization {
-    private Map<Integer, List<Integer>> adjacencyList = new HashMap<>();
-    private Map<Integer, List<Integer>> reverseGraph = new HashMap<>();
-    private Map<String, Double> edgeWeights = new HashMap<>();
-    private Set<Integer> nodes = new HashSet<>();
-    private String model;
-    private Random random;
+    private CompactGraph.Builder builder = new CompactGraph.Builder();
+    private CompactGraph graph;
+    // Set instead of graph when the adjacency lives off the heap (see GraphBackend)
+    private GraphBackend backend;
+    private PropagationModel model;
+    private SplittableRandom random;
     private int influenceEvaluations = 0;
+    private long simulationsRun = 0;
     private int numNodes, numEdges;
 
+    // Monte Carlo runs are split into `threads` chunks, each on its own RNG stream
+    private int threads = 1;
+    private ForkJoinPool pool;
+    // Whether pool was created by setParallelism(int) and must be shut down when replaced
+    private boolean ownsPool;
+    private ThreadLocal<Workspace> workspaces;
+    // The model's forward kernel, one per thread, and the scans it has not reported yet
+    private ThreadLocal<PropagationModel.Simulator> simulators;
+    private int simulatorNodes;
+    private LiveEdgeSnapshots snapshots;
+    private final InfluenceMetrics metrics = new InfluenceMetrics();
+    private SpreadCache spreadCache = new SpreadCache(DEFAULT_CACHE_SIZE, metrics);
+    private static final int DEFAULT_CACHE_SIZE = 1 << 16;
+
+    // CELF scores S + u on streams keyed by the seed set, in chunks of KEYED_CHUNK runs,
+    // and may re-evaluate up to celfBatchSize stale candidates at once (0: one per thread)
+    private static final int KEYED_CHUNK = 256;
+    private int celfBatchSize = 0;
+    private final LongAdder simulationNanos = new LongAdder();
+    private long simulationWallNanos;
+
+    // Dynamic updates: the model reweights the in-edges of the node whose in-degree changed
+    private PropagationModel.EdgeWeights weights;
+    private int workspaceSize;
+    // What celfIM(k, numSim) leaves for repairSeeds, and the edges changed since
+    private SeedRepair repair;
+    private double repairThreshold = 1.0 / 320;
+    // greedyIM and celfIM(k, numSim) save their state here between seeds (see setCheckpoint)
+    private Path checkpointFile;
+    private long checkpointMillis;
+
+    /** model is a name accepted by PropagationModel.of, e.g. "IC" or "LT". */
     public InfluenceMaximization(String model, int seed) {
-        this.model = model;
-        this.random = new Random(seed);
+        this(PropagationModel.of(model), seed);
+    }
+
+    public InfluenceMaximization(PropagationModel model, int seed) {
+        this.model = Objects.requireNonNull(model);
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Wraps a graph built elsewhere, e.g. by GraphIO. Probabilities carried
+     * by the graph are kept; otherwise they are assigned for the model.
+     */
+    public InfluenceMaximization(String model, int seed, CompactGraph graph) {
+        this(PropagationModel.of(model), seed, graph);
+    }
+
+    public InfluenceMaximization(PropagationModel model, int seed, CompactGraph graph) {
+        this(model, seed);
+        this.builder = null;
+        this.graph = graph;
+        if (graph.hasProbabilities()) {
+            prepareSimulation();
+            weights = model.keepWeights(graph);
+        } else {
+            initializePropagationParameters();
+        }
+    }
+
+    /**
+     * Runs on a graph kept outside the heap (see GraphIO.mapOffHeap). The
+     * Monte Carlo estimators, greedyIM and celfIM work as usual; selectors
+     * and updates that read CompactGraph's arrays throw IllegalStateException.
+     */
+    InfluenceMaximization(String model, int seed, GraphBackend backend) {
+        this(PropagationModel.of(model), seed);
+        this.builder = null;
+        this.backend = backend;
+        numNodes = backend.numNodes();
+        numEdges = (int) backend.numEdges();
+        if (!backend.hasProbabilities()) backend.assignProbabilities(this.model, random);
     }
 
+    /**
+     * Runs estimateInfluence on the given number of threads. For a fixed
+     * seed and thread count the estimates are reproducible bit for bit.
+     * The instance owns the pool it creates here and shuts it down when the
+     * parallelism is changed again.
+     */
+    public void setParallelism(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        if (ownsPool && pool.getParallelism() == threads) {
+            this.threads = threads;
+            return;
+        }
+        setParallelism(threads, threads > 1 ? new ForkJoinPool(threads) : null);
+        ownsPool = pool != null;
+    }
+
+    /** Runs on a pool owned by the caller, which the instance never shuts down. */
+    public void setParallelism(int threads, ForkJoinPool pool) {
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        if (ownsPool && this.pool != pool) this.pool.shutdown();
+        ownsPool = false;
+        this.threads = threads;
+        this.pool = pool;
+    }
+
+    public int getParallelism() { return threads; }
+
+    /**
+     * Number of stale CELF entries re-evaluated together when the queue top
+     * is stale; 0 (the default) uses one per thread. Has no effect on the
+     * selected seeds, only on how the evaluations are scheduled.
+     */
+    public void setCelfBatchSize(int batch) {
+        if (batch < 0) throw new IllegalArgumentException("batch size must be >= 0");
+        celfBatchSize = batch;
+    }
+
+    /** Bounds the seed-set spread cache used by the greedy selectors; 0 disables it. */
+    public void setSpreadCacheSize(int entries) {
+        if (entries < 0) throw new IllegalArgumentException("cache size must be >= 0");
+        spreadCache = new SpreadCache(entries, metrics);
+    }
+
+    /** Per-thread scratch space of the batch evaluator, reset by bumping the epoch instead of clearing. */
+    private static final class Workspace {
+        final int[] visitMark, queue;
+        // Sets reaching each node and those not yet propagated, FIFO ring of nodes
+        final long[] mask, pending;
+        final int[] ring;
+        // Out-edges scanned since worldsReach last reported them
+        long edges;
+        int epoch;
+        // Whether each edge slot is live in the current world, valid where
+        // coinMark holds worldEpoch; allocated on first use
+        int[] coinMark;
+        boolean[] coinLive;
+        int worldEpoch;
+
+        Workspace(int n) {
+            visitMark = new int[n];
+            queue = new int[n];
+            mask = new long[n];
+            pending = new long[n];
+            ring = new int[n];
+        }
+
+        int nextEpoch() {
+            if (++epoch == 0) {
+                Arrays.fill(visitMark, 0);
+                epoch = 1;
+            }
+            return epoch;
+        }
+
+        int nextWorld(int edgeSlots) {
+            if (coinMark == null || coinMark.length < edgeSlots) {
+                coinMark = new int[edgeSlots];
+                coinLive = new boolean[edgeSlots];
+                worldEpoch = 0;
+            }
+            if (++worldEpoch == 0) {
+                Arrays.fill(coinMark, 0);
+                worldEpoch = 1;
+            }
+            return worldEpoch;
+        }
+    }
+
+    /**
+     * Adds the edge u -> v. Until initializePropagationParameters runs, edges
+     * are collected into the graph under construction. After that the live
+     * graph is updated in place: only v's in-edge weights are recomputed, by
+     * the model's EdgeWeights (IC: 1/inDeg; LT: a new raw weight, with the
+     * others rescaled so the total stays 1/1.1), and the change is
+     * remembered for repairSeeds.
+     */
     public void addEdge(int u, int v) {
-        adjacencyList.computeIfAbsent(u, k -> new ArrayList<>()).add(v);
-        reverseGraph.computeIfAbsent(v, k -> new ArrayList<>()).add(u);
-        nodes.add(u);
-        nodes.add(v);
+        if (builder != null) {
+            builder.addEdge(u, v);
+            numEdges++;
+            return;
+        }
+        CompactGraph g = heapGraph("addEdge");
+        int du = g.addNode(u), dv = g.addNode(v);
+        weights.inEdgeAdded(dv, g.insertEdge(du, dv), random);
         numEdges++;
+        graphChanged(du, dv);
+    }
+
+    /**
+     * Removes one edge u -> v from the live graph and updates v's in-edge
+     * weights as addEdge does. Returns false if there is no such edge.
+     */
+    public boolean removeEdge(int u, int v) {
+        if (builder != null) throw new IllegalStateException("removeEdge needs an initialized graph");
+        CompactGraph g = heapGraph("removeEdge");
+        int du = g.denseId(u), dv = g.denseId(v);
+        if (du < 0 || dv < 0) return false;
+        int o = g.outOffsets[du];
+        while (o < g.outEnds[du] && g.outTargets[o] != dv) o++;
+        if (o == g.outEnds[du]) return false;
+        double weight = g.outProbs[o];
+        g.deleteEdge(du, dv);
+        weights.inEdgeRemoved(dv, weight);
+        numEdges--;
+        graphChanged(du, dv);
+        return true;
+    }
+
+    private void graphChanged(int u, int v) {
+        numNodes = graph.numNodes;
+        if (numNodes > workspaceSize) {
+            int size = workspaceSize = Math.max(numNodes, workspaceSize + (workspaceSize >> 1));
+            workspaces = ThreadLocal.withInitial(() -> new Workspace(size));
+        }
+        // Kernels size their scratch to the node count they are made for
+        if (numNodes > simulatorNodes) simulators = newSimulators();
+        snapshots = null;
+        if (repair != null) repair.edgeChanged(u, v);
+    }
+
+    /**
+     * Only seed sets that can reach a changed edge with probability at
+     * least theta (along a single path) are treated as affected by it in
+     * repairSeeds; 0 treats everything that can reach it at all as affected.
+     */
+    public void setRepairThreshold(double theta) {
+        if (theta < 0 || theta >= 1) throw new IllegalArgumentException("need 0 <= theta < 1");
+        repairThreshold = theta;
+    }
+
+    /**
+     * Makes greedyIM and celfIM(k, numSim) checkpoint to file after a seed
+     * once intervalMillis have passed since the last checkpoint, and after
+     * the last seed. Writes happen on a background thread. A null file
+     * turns checkpointing off. See resume.
+     */
+    public void setCheckpoint(Path file, long intervalMillis) {
+        if (intervalMillis < 0) throw new IllegalArgumentException("interval must be >= 0");
+        checkpointFile = file;
+        checkpointMillis = intervalMillis;
     }
 
     public void initializePropagationParameters() {
-        numNodes = nodes.size();
-        if (model.equals("IC")) {
-            for (int v : nodes) {
-                List<Integer> preds = reverseGraph.getOrDefault(v, new ArrayList<>());
-                int inDeg = preds.size();
-                if (inDeg > 0) {
-                    for (int u : preds) {
-                        edgeWeights.put(u + "->" + v, 1.0 / inDeg);
-                    }
-                }
+        if (backend != null) {
+            backend.assignProbabilities(model, random);
+            spreadCache.clear();
+            return;
+        }
+        if (builder != null) {
+            graph = builder.build();
+            builder = null;
+        }
+        prepareSimulation();
+        weights = model.assignWeights(graph, random);
+    }
+
+    private void prepareSimulation() {
+        numNodes = graph.numNodes;
+        numEdges = graph.numEdges;
+        int n = workspaceSize = numNodes;
+        workspaces = ThreadLocal.withInitial(() -> new Workspace(n));
+        simulators = newSimulators();
+        snapshots = null;
+        spreadCache.clear();
+        repair = null;
+    }
+
+    private ThreadLocal<PropagationModel.Simulator> newSimulators() {
+        CompactGraph g = graph;
+        PropagationModel m = model;
+        simulatorNodes = g.numNodes;
+        return ThreadLocal.withInitial(() -> m.simulator(g));
+    }
+
+    /** Maps original node ids to dense ids; ids missing from the graph are dropped. */
+    private int[] toDense(Collection<Integer> ids) {
+        int[] dense = new int[ids.size()];
+        int n = 0;
+        for (int id : ids) {
+            int v = graph != null ? graph.denseId(id) : backend.denseId(id);
+            if (v >= 0) dense[n++] = v;
+        }
+        return n == dense.length ? dense : Arrays.copyOf(dense, n);
+    }
+
+    private int nodeId(int v) {
+        return graph != null ? graph.nodeId(v) : backend.nodeId(v);
+    }
+
+    /** The heap graph, for code that reads CompactGraph's arrays directly. */
+    private CompactGraph heapGraph(String operation) {
+        if (graph == null && backend != null) {
+            throw new IllegalStateException(operation + " needs the graph on the heap");
+        }
+        return graph;
+    }
+
+    public double estimateInfluence(Set<Integer> seeds, int numSim) {
+        if (seeds.isEmpty()) {
+            countEvaluations(1);
+            return 0.0;
+        }
+        int[] dense = toDense(seeds);
+        // Seeds unknown to the graph are active but cannot influence anyone
+        return estimateInfluence(dense, dense.length, numSim) + (seeds.size() - dense.length);
+    }
+
+    private double estimateInfluence(int[] seeds, int numSeeds, int numSim) {
+        countEvaluations(1);
+        if (numSeeds == 0) return 0.0;
+        simulationsRun += numSim;
+        InfluenceEvents.SpreadEstimate event = new InfluenceEvents.SpreadEstimate();
+        event.begin();
+        double spread = monteCarlo(seeds, numSeeds, numSim);
+        spreadEstimated(event, "monte-carlo", numSeeds, 1, numSim);
+        return spread;
+    }
+
+    private double monteCarlo(int[] seeds, int numSeeds, int numSim) {
+        SplittableRandom stream = random.split();
+        int chunks = Math.min(threads, numSim);
+        if (chunks <= 1 || pool == null) {
+            return (double) runSimulations(seeds, numSeeds, numSim, stream) / numSim;
+        }
+
+        // Streams are split up front in chunk order, so the outcome does not
+        // depend on which worker picks up which chunk
+        SplittableRandom[] streams = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; c++) streams[c] = stream.split();
+        int[] fixedSeeds = Arrays.copyOf(seeds, numSeeds);
+        ForkJoinTask<Long> task = pool.submit(() -> IntStream.range(0, chunks).parallel()
+            .mapToLong(c -> runSimulations(fixedSeeds, numSeeds,
+                numSim / chunks + (c < numSim % chunks ? 1 : 0), streams[c]))
+            .sum());
+        return (double) task.join() / numSim;
+    }
+
+    /**
+     * Spread estimate whose random numbers depend only on (stream, seed set):
+     * run chunk c draws from a generator seeded with the set's fingerprint and
+     * c. The value is the same whenever and on whichever thread it is
+     * computed, which is what lets CELF evaluate candidates out of order.
+     */
+    private double keyedInfluence(int[] seeds, int numSeeds, int numSim, long stream) {
+        if (numSeeds == 0) return 0.0;
+        int[] sorted = Arrays.copyOf(seeds, numSeeds);
+        Arrays.sort(sorted);
+        long key = stream;
+        for (int s : sorted) key = mix64(key + GOLDEN_GAMMA * (s + 1L));
+        long fingerprint = key;
+
+        int chunks = (numSim + KEYED_CHUNK - 1) / KEYED_CHUNK;
+        IntToLongFunction chunk = c -> {
+            long t = System.nanoTime();
+            long active = runSimulations(sorted, numSeeds, Math.min(KEYED_CHUNK, numSim - c * KEYED_CHUNK),
+                                         new SplittableRandom(mix64(fingerprint + GOLDEN_GAMMA * c)));
+            simulationNanos.add(System.nanoTime() - t);
+            return active;
+        };
+        // Inside a worker the caller is already spreading candidates over the pool
+        if (chunks > 1 && pool != null && !ForkJoinTask.inForkJoinPool()) {
+            return (double) pool.submit(() -> IntStream.range(0, chunks).parallel().mapToLong(chunk).sum())
+                .join() / numSim;
+        }
+        long total = 0;
+        for (int c = 0; c < chunks; c++) total += chunk.applyAsLong(c);
+        return (double) total / numSim;
+    }
+
+    static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    // Separates the shared-world estimates of keyedSpreads(List, ...) from keyedInfluence's
+    private static final long BATCH_WORLDS = 0x6A09E667F3BCC909L;
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** keyedInfluence through the spread cache; the key includes the stream. */
+    private double keyedSpread(int[] seeds, int numSeeds, int numSim, long stream) {
+        if (numSeeds == 0) return 0.0;
+        SpreadCache.Key key = new SpreadCache.Key(seeds, numSeeds, numSim, stream);
+        Double cached = spreadCache.get(key);
+        if (cached != null) return cached;
+        countEvaluations(1);
+        simulationsRun += numSim;
+        InfluenceEvents.SpreadEstimate event = new InfluenceEvents.SpreadEstimate();
+        event.begin();
+        long t = System.nanoTime();
+        double spread = keyedInfluence(seeds, numSeeds, numSim, stream);
+        simulationWallNanos += System.nanoTime() - t;
+        spreadEstimated(event, "keyed", numSeeds, 1, numSim);
+        spreadCache.put(key, spread);
+        return spread;
+    }
+
+    /**
+     * Spreads of independent seed sets (original ids) on one stream, for
+     * callers that gather queries, such as InfluenceServer. Repeats are
+     * answered from the spread cache and the rest are evaluated together on
+     * shared worlds (see batchEstimates); either way a value depends only on
+     * (stream, set), not on how the queries were grouped. The worlds come
+     * from a stream derived from stream, so these entries never share a
+     * cache key with the keyedInfluence estimates CELF stores for the same
+     * stream. Unknown seeds count as active.
+     */
+    double[] keyedSpreads(List<? extends Collection<Integer>> sets, int numSim, long stream) {
+        long worlds = mix64(stream ^ BATCH_WORLDS);
+        int count = sets.size();
+        double[] out = new double[count];
+        int[][] dense = new int[count][];
+        SpreadCache.Key[] keys = new SpreadCache.Key[count];
+        int[] missing = new int[count];
+        int m = 0;
+        for (int i = 0; i < count; i++) {
+            dense[i] = toDense(sets.get(i));
+            if (dense[i].length == 0) continue;
+            keys[i] = new SpreadCache.Key(dense[i], dense[i].length, numSim, worlds);
+            Double cached = spreadCache.get(keys[i]);
+            if (cached != null) out[i] = cached;
+            else missing[m++] = i;
+        }
+        if (m > 0) {
+            int[][] misses = new int[m][];
+            for (int j = 0; j < m; j++) misses[j] = dense[missing[j]];
+            Estimate[] estimates = batchEstimates(misses, numSim, worlds);
+            for (int j = 0; j < m; j++) {
+                out[missing[j]] = estimates[j].mean;
+                spreadCache.put(keys[missing[j]], out[missing[j]]);
             }
-        } else if (model.equals("LT")) {
-            for (int v : nodes) {
-                List<Integer> preds = reverseGraph.getOrDefault(v, new ArrayList<>());
-                if (preds.size() > 0) {
-                    double[] w = new double[preds.size()];
-                    double sum = 0;
-                    for (int i = 0; i < w.length; i++) {
-                        w[i] = random.nextDouble();
-                        sum += w[i];
-                    }
-                    for (int i = 0; i < w.length; i++) {
-                        edgeWeights.put(preds.get(i) + "->" + v, w[i] / (sum * 1.1));
-                    }
+        }
+        for (int i = 0; i < count; i++) out[i] += sets.get(i).size() - dense[i].length;
+        return out;
+    }
+
+    /**
+     * Keyed spreads of S + c for the first count candidates, written to
+     * out[c]. Cache misses run concurrently, one candidate per task.
+     */
+    private void keyedSpreads(int[] S, int size, int[] candidates, int count, int numSim,
+                              long stream, double[] out) {
+        SpreadCache.Key[] keys = new SpreadCache.Key[count];
+        int[] missing = new int[count];
+        int m = 0;
+        for (int i = 0; i < count; i++) {
+            S[size] = candidates[i];
+            keys[i] = new SpreadCache.Key(S, size + 1, numSim, stream);
+            Double cached = spreadCache.get(keys[i]);
+            if (cached != null) out[candidates[i]] = cached;
+            else missing[m++] = i;
+        }
+        if (m == 0) return;
+        countEvaluations(m);
+        simulationsRun += (long) m * numSim;
+
+        InfluenceEvents.SpreadEstimate event = new InfluenceEvents.SpreadEstimate();
+        event.begin();
+        long t = System.nanoTime();
+        if (m == 1 || pool == null) {
+            for (int j = 0; j < m; j++) {
+                S[size] = candidates[missing[j]];
+                out[candidates[missing[j]]] = keyedInfluence(S, size + 1, numSim, stream);
+            }
+        } else {
+            int[] base = Arrays.copyOf(S, size + 1);
+            int misses = m;
+            pool.submit(() -> IntStream.range(0, misses).parallel().forEach(j -> {
+                int[] set = base.clone();
+                set[size] = candidates[missing[j]];
+                out[set[size]] = keyedInfluence(set, size + 1, numSim, stream);
+            })).join();
+        }
+        simulationWallNanos += System.nanoTime() - t;
+        spreadEstimated(event, "keyed", size + 1, m, numSim);
+        for (int j = 0; j < m; j++) spreadCache.put(keys[missing[j]], out[candidates[missing[j]]]);
+    }
+
+    /** A spread estimate with its standard error and the simulations behind it. */
+    public static class Estimate {
+        public double mean, stdError;
+        public int simulations;
+
+        /** Upper end of the two-sided interval at the given confidence. */
+        public double upperBound(double confidence) {
+            return mean + normalQuantile(0.5 + confidence / 2) * stdError;
+        }
+
+        public String toString() {
+            return String.format("%.2f ± %.2f (%d simulations)", mean, stdError, simulations);
+        }
+    }
+
+    // Adaptive estimates grow in blocks of ADAPTIVE_BLOCK runs (one bit-parallel IC
+    // batch); the variance comes from the block means, and at least MIN_BLOCKS are run
+    private static final int ADAPTIVE_BLOCK = 64;
+    private static final int MIN_BLOCKS = 4;
+
+    /**
+     * Streams simulations until the half-width of the confidence interval
+     * is at most relativeError times the mean, or maxSim runs are reached.
+     * Unknown seeds count as active, as in estimateInfluence.
+     */
+    public Estimate estimateInfluence(Set<Integer> seeds, double relativeError, double confidence, int maxSim) {
+        checkTarget(relativeError, confidence, maxSim);
+        int[] dense = toDense(seeds);
+        countEvaluations(1);
+        Estimate e = adaptiveInfluence(dense, dense.length, random.nextLong(), relativeError,
+                                       normalQuantile(0.5 + confidence / 2), maxSim, Double.NEGATIVE_INFINITY);
+        e.mean += seeds.size() - dense.length;
+        return e;
+    }
+
+    private static void checkTarget(double relativeError, double confidence, int maxSim) {
+        if (relativeError <= 0 || confidence <= 0 || confidence >= 1 || maxSim < 1) {
+            throw new IllegalArgumentException("need relativeError > 0, 0 < confidence < 1 and maxSim >= 1");
+        }
+    }
+
+    /**
+     * Keyed adaptive estimate: block b draws from a generator seeded with
+     * the set's fingerprint and b. Besides the relative error target it
+     * stops once mean + z * stdError falls below stopBelow, i.e. once the
+     * set can no longer reach a competing value. With a pool each round
+     * runs one block per thread.
+     */
+    private Estimate adaptiveInfluence(int[] seeds, int numSeeds, long stream, double relativeError,
+                                       double z, int maxSim, double stopBelow) {
+        Estimate e = new Estimate();
+        if (numSeeds == 0) return e;
+        InfluenceEvents.SpreadEstimate event = new InfluenceEvents.SpreadEstimate();
+        event.begin();
+        int[] sorted = Arrays.copyOf(seeds, numSeeds);
+        Arrays.sort(sorted);
+        long key = stream;
+        for (int s : sorted) key = mix64(key + GOLDEN_GAMMA * (s + 1L));
+        long fingerprint = key;
+
+        int perRound = pool == null ? 1 : threads;
+        long[] counts = new long[perRound];
+        long total = 0;
+        int blocks = 0;
+        // Welford over the means of full blocks
+        double mean = 0, m2 = 0;
+        while (e.simulations < maxSim) {
+            int first = blocks, round = 0;
+            while (round < perRound && e.simulations + round * ADAPTIVE_BLOCK < maxSim) round++;
+            int done = e.simulations, rounds = round;
+            IntToLongFunction block = b -> runSimulations(sorted, numSeeds,
+                Math.min(ADAPTIVE_BLOCK, maxSim - done - b * ADAPTIVE_BLOCK),
+                new SplittableRandom(mix64(fingerprint + GOLDEN_GAMMA * (first + b))));
+            if (rounds > 1) {
+                pool.submit(() -> IntStream.range(0, rounds).parallel().forEach(b -> counts[b] = block.applyAsLong(b)))
+                    .join();
+            } else {
+                counts[0] = block.applyAsLong(0);
+            }
+            for (int b = 0; b < rounds; b++) {
+                int size = Math.min(ADAPTIVE_BLOCK, maxSim - e.simulations);
+                total += counts[b];
+                e.simulations += size;
+                if (size == ADAPTIVE_BLOCK) {
+                    double x = (double) counts[b] / size;
+                    blocks++;
+                    double delta = x - mean;
+                    mean += delta / blocks;
+                    m2 += delta * (x - mean);
                 }
             }
+            e.mean = (double) total / e.simulations;
+            e.stdError = blocks > 1 ? Math.sqrt(m2 / (blocks - 1) / blocks) : Double.POSITIVE_INFINITY;
+            if (blocks < MIN_BLOCKS) continue;
+            double halfWidth = z * e.stdError;
+            if (halfWidth <= relativeError * e.mean || e.mean + halfWidth < stopBelow) break;
         }
+        simulationsRun += e.simulations;
+        spreadEstimated(event, "adaptive", numSeeds, 1, e.simulations);
+        return e;
     }
 
-    private Set<Integer> simulateIC(Set<Integer> seeds) {
-        Set<Integer> active = new HashSet<>(seeds);
-        Set<Integer> newlyActive = new HashSet<>(seeds);
-        while (!newlyActive.isEmpty()) {
-            Set<Integer> nextActive = new HashSet<>();
-            for (int u : newlyActive) {
-                for (int v : adjacencyList.getOrDefault(u, new ArrayList<>())) {
-                    if (!active.contains(v)) {
-                        double prob = edgeWeights.getOrDefault(u + "->" + v, 0.0);
-                        if (random.nextDouble() < prob) {
-                            nextActive.add(v);
-                        }
-                    }
+    private void countEvaluations(int m) {
+        influenceEvaluations += m;
+        metrics.evaluations.add(m);
+    }
+
+    private void spreadEstimated(InfluenceEvents.SpreadEstimate event, String kind, int seedSetSize,
+                                 int seedSets, long simulations) {
+        if (!event.shouldCommit()) return;
+        event.kind = kind;
+        event.seedSetSize = seedSetSize;
+        event.seedSets = seedSets;
+        event.simulations = (long) seedSets * simulations;
+        event.commit();
+    }
+
+    /** Records a committed seed in the result, the metrics and, when recording, a JFR event. */
+    private void seedSelected(Result result, IterationHistory h, String algorithm, int queueSize) {
+        result.history.add(h);
+        metrics.seedsSelected.increment();
+        metrics.queueSize = queueSize;
+        InfluenceEvents.SeedSelection event = new InfluenceEvents.SeedSelection();
+        if (!event.shouldCommit()) return;
+        event.algorithm = algorithm;
+        event.model = model.name();
+        event.iteration = h.iteration;
+        event.node = h.node;
+        event.marginalGain = h.marginalGain;
+        event.totalSpread = h.totalSpread;
+        event.iterationTime = h.time;
+        event.evaluations = h.evaluations;
+        event.simulations = h.simulations;
+        event.commit();
+    }
+
+    /** Records that a stale queue entry was re-scored (node is a dense id). */
+    private void reevaluated(String algorithm, int iteration, int node, double staleGain, double gain, int queueSize) {
+        metrics.reevaluations.increment();
+        metrics.queueSize = queueSize;
+        InfluenceEvents.LazyReevaluation event = new InfluenceEvents.LazyReevaluation();
+        if (!event.shouldCommit()) return;
+        event.algorithm = algorithm;
+        event.iteration = iteration;
+        event.node = nodeId(node);
+        event.staleGain = staleGain;
+        event.gain = gain;
+        event.queueSize = queueSize;
+        event.commit();
+    }
+
+    /**
+     * Standard normal quantile (Acklam's rational approximation, relative
+     * error below 1.2e-9).
+     */
+    static double normalQuantile(double p) {
+        if (p <= 0 || p >= 1) throw new IllegalArgumentException("p must be in (0, 1)");
+        double[] a = {-39.69683028665376, 220.9460984245205, -275.9285104469687,
+                      138.3577518672690, -30.66479806614716, 2.506628277459239};
+        double[] b = {-54.47609879822406, 161.5858368580409, -155.6989798598866,
+                      66.80131188771972, -13.28068155288572};
+        double[] c = {-0.007784894002430293, -0.3223964580411365, -2.400758277161838,
+                      -2.549732539343734, 4.374664141464968, 2.938163982698783};
+        double[] d = {0.007784695709041462, 0.3224671290700398, 2.445134137142996, 3.754408661907416};
+        if (p < 0.02425) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                 / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - 0.02425) return -normalQuantile(1 - p);
+        double q = p - 0.5, r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+             / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+
+    /**
+     * Spread estimates for many seed sets on shared random worlds. Each
+     * world is traversed once for up to 64 sets: bit i of a node's mask says
+     * whether set i reaches it, so one pass serves the whole group, and an
+     * edge's coin is flipped once per world and reused by every set that
+     * reaches it. Coins are a hash of (world, edge), so further groups see
+     * the very same worlds and a set's estimate does not depend on the sets
+     * it is batched with. The standard error comes from the per-world
+     * spreads; unknown seeds count as active, with no variance.
+     */
+    public Estimate[] estimateInfluenceBatch(List<? extends Set<Integer>> seedSets, int numSim) {
+        int[][] dense = new int[seedSets.size()][];
+        for (int i = 0; i < dense.length; i++) dense[i] = toDense(seedSets.get(i));
+        Estimate[] out = batchEstimates(dense, numSim, random.nextLong());
+        for (int i = 0; i < dense.length; i++) out[i].mean += seedSets.get(i).size() - dense[i].length;
+        return out;
+    }
+
+    /** Batch estimates of dense seed sets on the worlds of stream; chunks of worlds run in parallel. */
+    Estimate[] batchEstimates(int[][] sets, int numSim, long stream) {
+        if (numSim < 1) throw new IllegalArgumentException("numSim must be >= 1");
+        int count = sets.length;
+        countEvaluations(count);
+        simulationsRun += (long) count * numSim;
+        InfluenceEvents.SpreadEstimate event = new InfluenceEvents.SpreadEstimate();
+        event.begin();
+
+        PropagationModel.WorldSampler worlds = model.worldSampler(heapGraph("estimateInfluenceBatch"));
+
+        // One task per (group of 64 sets, chunk of worlds); integer sums do not depend on the order
+        long[] sum = new long[count], sumSq = new long[count];
+        int groups = (count + 63) >>> 6, chunks = (numSim + KEYED_CHUNK - 1) / KEYED_CHUNK;
+        IntConsumer task = t -> {
+            int from = (t / chunks) << 6, lanes = Math.min(64, count - from), c = t % chunks;
+            long[] s = new long[lanes], sq = new long[lanes];
+            worldsReach(sets, from, lanes, c * KEYED_CHUNK, Math.min(numSim, (c + 1) * KEYED_CHUNK), stream,
+                        worlds, s, sq);
+            synchronized (sum) {
+                for (int i = 0; i < lanes; i++) {
+                    sum[from + i] += s[i];
+                    sumSq[from + i] += sq[i];
                 }
             }
-            active.addAll(nextActive);
-            newlyActive = nextActive;
+        };
+        int tasks = groups * chunks;
+        if (tasks > 1 && pool != null && !ForkJoinTask.inForkJoinPool()) {
+            pool.submit(() -> IntStream.range(0, tasks).parallel().forEach(task)).join();
+        } else {
+            for (int t = 0; t < tasks; t++) task.accept(t);
         }
-        return active;
+        spreadEstimated(event, "batch", 0, count, numSim);
+
+        Estimate[] out = new Estimate[count];
+        for (int i = 0; i < count; i++) {
+            Estimate e = out[i] = new Estimate();
+            e.simulations = numSim;
+            e.mean = (double) sum[i] / numSim;
+            double variance = numSim > 1 ? (sumSq[i] - (double) sum[i] * sum[i] / numSim) / (numSim - 1) : 0;
+            e.stdError = Math.sqrt(Math.max(0, variance) / numSim);
+        }
+        return out;
     }
 
-    private Set<Integer> simulateLT(Set<Integer> seeds) {
-        Map<Integer, Double> thresholds = new HashMap<>();
-        for (int v : nodes) thresholds.put(v, random.nextDouble());
+    /**
+     * Worlds w0..w1-1 of stream for sets[from..from+lanes): adds each set's
+     * reach per world to sum and its square to sumSq. Traversal is the
+     * pending-bits scheme of the IC batch kernel with sets in place of worlds.
+     * Reach counts are kept bit-sliced, planes[b] holding bit b of all 64
+     * counts, so adding a node's mask costs a couple of word operations
+     * instead of one increment per set.
+     */
+    private void worldsReach(int[][] sets, int from, int lanes, int w0, int w1, long stream,
+                             PropagationModel.WorldSampler worlds, long[] sum, long[] sumSq) {
+        CompactGraph g = graph;
+        Workspace ws = workspaces.get();
+        int[] visitMark = ws.visitMark, touched = ws.queue, ring = ws.ring;
+        long[] mask = ws.mask, pending = ws.pending;
+        int n = ring.length;
+        long[] planes = new long[33 - Integer.numberOfLeadingZeros(n)];
 
-        Set<Integer> active = new HashSet<>(seeds);
-        Set<Integer> newlyActive = new HashSet<>(seeds);
+        for (int w = w0; w < w1; w++) {
+            long world = mix64(stream + GOLDEN_GAMMA * (w + 1L));
+            int stamp = ws.nextEpoch(), coins = ws.nextWorld(g.outTargets.length);
+            int numTouched = 0, head = 0, tail = 0, queued = 0;
+            for (int i = 0; i < lanes; i++) {
+                long bit = 1L << i;
+                for (int s : sets[from + i]) {
+                    if (visitMark[s] != stamp) {
+                        visitMark[s] = stamp;
+                        touched[numTouched++] = s;
+                        mask[s] = 0;
+                        pending[s] = 0;
+                    }
+                    if ((mask[s] & bit) != 0) continue;
+                    mask[s] |= bit;
+                    if (pending[s] == 0) {
+                        ring[tail++] = s;
+                        if (tail == n) tail = 0;
+                        queued++;
+                    }
+                    pending[s] |= bit;
+                }
+            }
 
-        while (!newlyActive.isEmpty()) {
-            Set<Integer> nextActive = new HashSet<>();
-            for (int v : nodes) {
-                if (!active.contains(v)) {
-                    double influence = 0.0;
-                    for (int u : reverseGraph.getOrDefault(v, new ArrayList<>())) {
-                        if (active.contains(u)) {
-                            influence += edgeWeights.getOrDefault(u + "->" + v, 0.0);
-                        }
+            while (queued > 0) {
+                int u = ring[head++];
+                if (head == n) head = 0;
+                queued--;
+                long delta = pending[u];
+                pending[u] = 0;
+                ws.edges += g.outEnds[u] - g.outOffsets[u];
+                for (int e = g.outOffsets[u], end = g.outEnds[u]; e < end; e++) {
+                    int v = g.outTargets[e];
+                    long fresh = delta;
+                    if (visitMark[v] == stamp) {
+                        fresh &= ~mask[v];
+                        if (fresh == 0) continue;
+                    }
+                    // Each edge is asked once per world and the answer reused by every set
+                    if (ws.coinMark[e] != coins) {
+                        ws.coinMark[e] = coins;
+                        ws.coinLive[e] = worlds.live(u, e, world);
                     }
-                    if (influence >= thresholds.get(v)) {
-                        nextActive.add(v);
+                    if (!ws.coinLive[e]) continue;
+                    if (visitMark[v] != stamp) {
+                        visitMark[v] = stamp;
+                        touched[numTouched++] = v;
+                        mask[v] = 0;
+                        pending[v] = 0;
                     }
+                    mask[v] |= fresh;
+                    if (pending[v] == 0) {
+                        ring[tail++] = v;
+                        if (tail == n) tail = 0;
+                        queued++;
+                    }
+                    pending[v] |= fresh;
+                }
+            }
+
+            Arrays.fill(planes, 0);
+            for (int i = 0; i < numTouched; i++) {
+                long carry = mask[touched[i]];
+                for (int b = 0; carry != 0; b++) {
+                    long t = planes[b] & carry;
+                    planes[b] ^= carry;
+                    carry = t;
                 }
             }
-            active.addAll(nextActive);
-            newlyActive = nextActive;
+            for (int i = 0; i < lanes; i++) {
+                long c = 0;
+                for (int b = 0; b < planes.length; b++) c |= ((planes[b] >>> i) & 1L) << b;
+                sum[i] += c;
+                sumSq[i] += c * c;
+            }
         }
-        return active;
+        metrics.simulations.add(w1 - w0);
+        metrics.edgesTraversed.add(ws.edges);
+        ws.edges = 0;
     }
 
-    public double estimateInfluence(Set<Integer> seeds, int numSim) {
-        influenceEvaluations++;
-        if (seeds.isEmpty()) return 0.0;
-        long total = 0;
-        for (int i = 0; i < numSim; i++) {
-            Set<Integer> influenced = model.equals("IC") ? simulateIC(seeds) : simulateLT(seeds);
-            total += influenced.size();
+    /** One scalar cascade of the instance's model on the caller's generator; for benchmarks. */
+    int simulate(int[] seeds, int numSeeds, SplittableRandom rng) {
+        if (backend != null) return (int) backend.simulate(model, seeds, numSeeds, 1, rng, metrics.edgesTraversed);
+        PropagationModel.Simulator sim = simulators.get();
+        int spread = (int) sim.run(seeds, numSeeds, 1, rng);
+        metrics.edgesTraversed.add(sim.edges);
+        sim.edges = 0;
+        return spread;
+    }
+
+    private long runSimulations(int[] seeds, int numSeeds, int numSim, SplittableRandom rng) {
+        if (backend != null) {
+            long total = backend.simulate(model, seeds, numSeeds, numSim, rng, metrics.edgesTraversed);
+            metrics.simulations.add(numSim);
+            return total;
         }
-        return (double) total / numSim;
+        // One virtual call per batch of cascades; the loops inside are the model's own
+        PropagationModel.Simulator sim = simulators.get();
+        long total = sim.run(seeds, numSeeds, numSim, rng);
+        metrics.simulations.add(numSim);
+        metrics.edgesTraversed.add(sim.edges);
+        sim.edges = 0;
+        return total;
     }
 
     public static class Result {
@@ -124,11 +865,24 @@ public class InfluenceMaximization {
         public List<IterationHistory> history = new ArrayList<>();
         public double totalTime;
         public int totalEvaluations;
+        public int threads = 1;
+        public long cacheHits, cacheMisses;
+        // CELF: stale entries re-evaluated per batch, and simulation time summed
+        // over workers divided by the wall-clock time spent simulating
+        public int batchSize = 1;
+        public double parallelSpeedup = 1.0;
     }
 
     public static class IterationHistory {
         public int iteration, node, evaluations;
         public double marginalGain, totalSpread, time;
+        // Simulations run so far (cumulative, like evaluations); adaptive CELF also
+        // records the runs and standard error behind this seed's spread estimate
+        public long simulations;
+        public int seedSimulations;
+        public double stdError;
+        // CELF++ only: re-evaluations skipped so far thanks to the look-ahead gain
+        public int evaluationsSaved;
 
         public IterationHistory(int iter, int n, double mg, double ts, double t, int e) {
             iteration = iter; node = n; marginalGain = mg;
@@ -141,49 +895,73 @@ public class InfluenceMaximization {
         }
     }
 
+    /**
+     * Plain greedy: every round scores S + u for all remaining u. Spreads
+     * are keyed by seed set (see keyedInfluence), so with a thread pool a
+     * round runs one candidate per task and the result does not depend on
+     * the number of threads.
+     */
     public Result greedyIM(int k, int numSim, boolean verbose) {
-        if (verbose) {
-            System.out.println("\n" + "=".repeat(60));
-            System.out.println("Naive Greedy (k=" + k + ", model=" + model + ")");
-            System.out.println("=".repeat(60));
-        }
+        if (verbose) banner("Naive Greedy (k=" + k + ", model=" + model.name() + ")");
+        return greedyIM(k, numSim, random.nextLong(), null, verbose);
+    }
 
+    private Result greedyIM(int k, int numSim, long stream, SelectionCheckpoint from, boolean verbose) {
         Result result = new Result();
-        Set<Integer> S = new HashSet<>();
+        int[] S = new int[k + 1];
+        boolean[] inS = new boolean[numNodes];
+        double[] spreadOf = new double[numNodes];
+        int[] candidates = new int[numNodes];
+        int size = 0;
         influenceEvaluations = 0;
+        simulationsRun = 0;
+        spreadCache.resetCounters();
         long start = System.currentTimeMillis();
+        if (from != null) {
+            size = restore(from, S, result);
+            for (int i = 0; i < size; i++) inS[S[i]] = true;
+            start -= (long) (from.elapsed * 1000);
+        }
+        Checkpoints checkpoints = checkpoints(SelectionCheckpoint.GREEDY, k, numSim, stream, null, start, from);
 
-        for (int i = 0; i < k; i++) {
+        for (int i = size; i < k && size < numNodes; i++) {
             long iterStart = System.currentTimeMillis();
+            // S is fixed for the whole iteration, so its spread is looked up once
+            double base = keyedSpread(S, size, numSim, stream);
+            int count = 0;
+            for (int u = 0; u < numNodes; u++) if (!inS[u]) candidates[count++] = u;
+            keyedSpreads(S, size, candidates, count, numSim, stream, spreadOf);
+
             int bestNode = -1;
             double bestGain = -1;
-
-            for (int u : nodes) {
-                if (!S.contains(u)) {
-                    Set<Integer> Su = new HashSet<>(S);
-                    Su.add(u);
-                    double gain = estimateInfluence(Su, numSim) - 
-                                 (S.isEmpty() ? 0 : estimateInfluence(S, numSim));
-                    if (gain > bestGain) {
-                        bestGain = gain;
-                        bestNode = u;
-                    }
+            for (int c = 0; c < count; c++) {
+                double gain = spreadOf[candidates[c]] - base;
+                if (gain > bestGain) {
+                    bestGain = gain;
+                    bestNode = candidates[c];
                 }
             }
 
-            S.add(bestNode);
-            double spread = estimateInfluence(S, numSim);
+            S[size++] = bestNode;
+            inS[bestNode] = true;
+            result.seeds.add(nodeId(bestNode));
+            double spread = keyedSpread(S, size, numSim, stream);
             double iterTime = (System.currentTimeMillis() - iterStart) / 1000.0;
 
-            IterationHistory h = new IterationHistory(i+1, bestNode, bestGain, 
+            IterationHistory h = new IterationHistory(i+1, nodeId(bestNode), bestGain,
                                                      spread, iterTime, influenceEvaluations);
-            result.history.add(h);
+            h.simulations = simulationsRun;
+            seedSelected(result, h, "greedy", 0);
             if (verbose) System.out.println(h);
+            checkpoints.seed(S, size, spread, i + 1, result, null, influenceEvaluations, simulationsRun);
         }
+        checkpoints.close(S, size, result, null, influenceEvaluations, simulationsRun);
 
         result.totalTime = (System.currentTimeMillis() - start) / 1000.0;
         result.totalEvaluations = influenceEvaluations;
-        result.seeds = S;
+        result.threads = threads;
+        result.cacheHits = spreadCache.hits();
+        result.cacheMisses = spreadCache.misses();
 
         if (verbose) {
             System.out.printf("\nTotal: %.2fs, %d evaluations\n", 
@@ -192,81 +970,524 @@ public class InfluenceMaximization {
         return result;
     }
 
-    private static class CELFNode implements Comparable<CELFNode> {
-        int nodeId, iteration;
-        double marginalGain;
+    /**
+     * CELF lazy greedy. Every S + u is scored on random streams keyed by the
+     * set (see keyedInfluence), so with a thread pool the singleton pass and
+     * the re-evaluation of stale entries can run concurrently: when the top
+     * is stale, it and the stale entries right behind it are simulated as
+     * one batch, and the queue then proceeds exactly as it would have one
+     * entry at a time. The selection does not depend on threads or batch size.
+     */
+    public Result celfIM(int k, int numSim, boolean verbose) {
+        if (verbose) banner("CELF Algorithm (k=" + k + ", model=" + model.name() + ")");
+        return celfIM(k, numSim, random.nextLong(), null, verbose);
+    }
 
-        CELFNode(int id, double gain, int iter) {
-            nodeId = id; marginalGain = gain; iteration = iter;
+    /**
+     * Re-selects the seeds of the last celfIM(k, numSim) run after edges
+     * were added or removed. Spreads are keyed by seed set, so an estimate
+     * cached for a set that cannot reach a changed edge is still the one a
+     * fresh run on the same stream would compute. Only those reaching one
+     * (see setRepairThreshold) are dropped: singletons are re-simulated for
+     * the affected nodes alone, and the lazy greedy pass is replayed with
+     * every other evaluation answered from the cache while the new seed
+     * prefix matches the old one. The simulation cost therefore follows the
+     * region around the changed edges and the seeds it displaces.
+     */
+    public Result repairSeeds(boolean verbose) {
+        if (repair == null) throw new IllegalStateException("repairSeeds needs a previous celfIM(k, numSim) run");
+        SeedRepair state = repair;
+        boolean[] affected = state.affectedRegion(heapGraph("repairSeeds"), repairThreshold);
+        long stream = state.stream;
+        spreadCache.removeIf(key -> {
+            if (key.stream != stream) return false;
+            for (int s : key.seeds) if (affected[s]) return true;
+            return false;
+        });
+        if (verbose) {
+            int count = 0;
+            for (boolean a : affected) if (a) count++;
+            banner("CELF repair (" + state.changedEdges() + " changed edges, " + count + " affected nodes)");
         }
+        return celfIM(state.k, state.numSim, stream, affected, verbose);
+    }
 
-        public int compareTo(CELFNode o) {
-            return Double.compare(o.marginalGain, marginalGain);
+    /**
+     * Continues the greedyIM or celfIM(k, numSim) run saved in file by
+     * setCheckpoint. The instance must hold the same graph, model and edge
+     * probabilities (checked against a fingerprint); the seeds, spreads and
+     * evaluation counts then match those of an uninterrupted run.
+     */
+    public Result resume(Path file, boolean verbose) throws IOException {
+        if (builder != null) throw new IllegalStateException("call initializePropagationParameters first");
+        SelectionCheckpoint c = SelectionCheckpoint.read(file);
+        if (!c.model.equals(model.name()) || c.numNodes != numNodes || c.fingerprint != SelectionCheckpoint.fingerprint(heapGraph("resume"))) {
+            throw new IOException(file + ": checkpoint was taken on a different graph or model");
         }
+        if (verbose) banner("Resuming " + (c.algorithm == SelectionCheckpoint.CELF ? "CELF" : "Naive Greedy")
+            + " at seed " + c.seeds.length + "/" + c.k + " (model=" + model.name() + ")");
+        return c.algorithm == SelectionCheckpoint.CELF
+            ? celfIM(c.k, c.numSim, c.stream, null, c, verbose)
+            : greedyIM(c.k, c.numSim, c.stream, c, verbose);
     }
 
-    public Result celfIM(int k, int numSim, boolean verbose) {
-        if (verbose) {
-            System.out.println("\n" + "=".repeat(60));
-            System.out.println("CELF Algorithm (k=" + k + ", model=" + model + ")");
-            System.out.println("=".repeat(60));
-        }
+    /** Loads a checkpoint's seeds and counters into the instance (see Checkpoints.restore). */
+    private int restore(SelectionCheckpoint c, int[] S, Result result) {
+        influenceEvaluations = c.evaluations;
+        simulationsRun = c.simulations;
+        return Checkpoints.restore(c, S, result, spreadCache, this::nodeId);
+    }
+
+    private Checkpoints checkpoints(int algorithm, int k, int numSim, long stream, double[] singleton,
+                                    long start, SelectionCheckpoint from) {
+        CompactGraph g = checkpointFile == null ? null : heapGraph("checkpoints");
+        return new Checkpoints(checkpointFile, checkpointMillis, algorithm, model.name(), g, numNodes,
+                               k, numSim, stream, singleton, start, from);
+    }
+
+    /** CELF on the given stream; a non-null affected marks the singletons a repair re-simulates. */
+    Result celfIM(int k, int numSim, long stream, boolean[] affected, boolean verbose) {
+        return celfIM(k, numSim, stream, affected, null, verbose);
+    }
 
+    private Result celfIM(int k, int numSim, long stream, boolean[] affected, SelectionCheckpoint from,
+                          boolean verbose) {
         long start = System.currentTimeMillis();
         influenceEvaluations = 0;
+        simulationsRun = 0;
+        spreadCache.resetCounters();
+        simulationNanos.reset();
+        simulationWallNanos = 0;
+        int batch = pool == null ? 1 : (celfBatchSize > 0 ? celfBatchSize : threads);
 
-        PriorityQueue<CELFNode> Q = new PriorityQueue<>();
-        for (int u : nodes) {
-            Set<Integer> single = new HashSet<>();
-            single.add(u);
-            double gain = estimateInfluence(single, numSim);
-            Q.add(new CELFNode(u, gain, 0));
-        }
-
+        // spreadOf[u] is the spread of S + u, valid while scoredAt[u] == iteration
+        double[] spreadOf = new double[numNodes];
+        int[] scoredAt = new int[numNodes];
+        int[] candidates = new int[Math.max(numNodes, batch)];
+        int[] S = new int[k + 1];
+        IndexedMaxHeap Q = new IndexedMaxHeap(numNodes);
         Result result = new Result();
-        Set<Integer> S = new HashSet<>();
+        int[] held = new int[batch];
+        int size = 0;
         double spread = 0;
         int iteration = 0;
 
-        while (S.size() < k) {
+        if (from == null) {
+            int pending = 0;
+            double[] known = affected == null ? null : repair.singleton;
+            for (int u = 0; u < numNodes; u++) {
+                if (known == null || u >= known.length || affected[u]) candidates[pending++] = u;
+                else spreadOf[u] = known[u];
+            }
+            keyedSpreads(S, 0, candidates, pending, numSim, stream, spreadOf);
+            repair = new SeedRepair(k, numSim, stream, Arrays.copyOf(spreadOf, numNodes));
+            Q.fill(spreadOf, numNodes, 0);
+        } else {
+            size = restore(from, S, result);
+            spread = from.spread;
+            iteration = from.iteration;
+            repair = new SeedRepair(k, numSim, stream, from.singleton);
+            for (int i = 0; i < from.queueNodes.length; i++) {
+                Q.push(from.queueNodes[i], from.queueGains[i], from.queueIterations[i]);
+            }
+            start -= (long) (from.elapsed * 1000);
+        }
+        Checkpoints checkpoints = checkpoints(SelectionCheckpoint.CELF, k, numSim, stream, repair.singleton, start, from);
+
+        while (size < k && !Q.isEmpty()) {
             long iterStart = System.currentTimeMillis();
-            CELFNode top = Q.poll();
+            int top = Q.peek();
 
-            if (top.iteration == iteration) {
-                S.add(top.nodeId);
-                spread = estimateInfluence(S, numSim);
+            if (Q.iteration[top] == iteration) {
+                Q.poll();
+                S[size++] = top;
+                result.seeds.add(nodeId(top));
+                spread = keyedSpread(S, size, numSim, stream);
                 double iterTime = (System.currentTimeMillis() - iterStart) / 1000.0;
 
-                IterationHistory h = new IterationHistory(iteration+1, top.nodeId,
-                    top.marginalGain, spread, iterTime, influenceEvaluations);
-                result.history.add(h);
+                IterationHistory h = new IterationHistory(iteration+1, nodeId(top),
+                    Q.gain[top], spread, iterTime, influenceEvaluations);
+                h.simulations = simulationsRun;
+                seedSelected(result, h, "celf", Q.size());
 
                 if (verbose) {
                     System.out.printf("Seed %d/%d: Node %d | Spread: %.2f | Evals: %d\n",
-                        S.size(), k, top.nodeId, spread, influenceEvaluations);
+                        size, k, nodeId(top), spread, influenceEvaluations);
                 }
                 iteration++;
+                checkpoints.seed(S, size, spread, iteration, result, Q, influenceEvaluations, simulationsRun);
             } else {
-                Set<Integer> Su = new HashSet<>(S);
-                Su.add(top.nodeId);
-                double newGain = estimateInfluence(Su, numSim) - spread;
-                Q.add(new CELFNode(top.nodeId, newGain, iteration));
+                if (scoredAt[top] != iteration) {
+                    // Score the top together with the stale entries queued right behind it
+                    Q.poll();
+                    int count = 0, numHeld = 0;
+                    candidates[count++] = top;
+                    while (count < batch && !Q.isEmpty() && Q.iteration[Q.peek()] != iteration) {
+                        int next = Q.poll();
+                        held[numHeld++] = next;
+                        if (scoredAt[next] != iteration) candidates[count++] = next;
+                    }
+                    for (int i = 0; i < numHeld; i++) Q.push(held[i], Q.gain[held[i]], Q.iteration[held[i]]);
+                    keyedSpreads(S, size, candidates, count, numSim, stream, spreadOf);
+                    for (int i = 0; i < count; i++) scoredAt[candidates[i]] = iteration;
+                }
+                reevaluated("celf", iteration, top, Q.gain[top], spreadOf[top] - spread, Q.size());
+                Q.push(top, spreadOf[top] - spread, iteration);
             }
         }
+        checkpoints.close(S, size, result, Q, influenceEvaluations, simulationsRun);
 
         result.totalTime = (System.currentTimeMillis() - start) / 1000.0;
         result.totalEvaluations = influenceEvaluations;
-        result.seeds = S;
+        result.threads = threads;
+        result.batchSize = batch;
+        result.cacheHits = spreadCache.hits();
+        result.cacheMisses = spreadCache.misses();
+        if (simulationWallNanos > 0) result.parallelSpeedup = (double) simulationNanos.sum() / simulationWallNanos;
 
         if (verbose) {
             System.out.printf("\nTotal: %.2fs, %d evals (%.2fx speedup)\n",
                 result.totalTime, result.totalEvaluations,
                 (double)(k * numNodes) / result.totalEvaluations);
+            if (threads > 1) {
+                System.out.printf("%d threads, batch %d: %.2fx parallel speedup\n",
+                    threads, batch, result.parallelSpeedup);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * CELF with adaptive simulation counts: each S + u is simulated until its
+     * confidence interval is within relativeError of the mean (at most
+     * maxSim runs), or until its upper confidence bound shows it cannot beat
+     * the best gain already confirmed this round. A candidate cut short is
+     * queued with that upper bound, so lazy evaluation stays conservative.
+     * Candidates are evaluated one at a time, since the cut-off depends on
+     * the order; each estimate still runs one block per thread.
+     */
+    public Result celfIM(int k, double relativeError, double confidence, int maxSim, boolean verbose) {
+        checkTarget(relativeError, confidence, maxSim);
+        if (verbose) banner("Adaptive CELF (k=" + k + ", model=" + model.name() + ", error=" + relativeError
+            + ", confidence=" + confidence + ")");
+
+        long start = System.currentTimeMillis();
+        influenceEvaluations = 0;
+        simulationsRun = 0;
+        long stream = random.nextLong();
+        double z = normalQuantile(0.5 + confidence / 2);
+
+        // estimateOf[u] is the estimate of S + u from the round it was last scored in
+        Estimate[] estimateOf = new Estimate[numNodes];
+        int[] S = new int[k + 1];
+        IndexedMaxHeap Q = new IndexedMaxHeap(numNodes);
+        double bestFresh = Double.NEGATIVE_INFINITY;
+        for (int u = 0; u < numNodes; u++) {
+            S[0] = u;
+            countEvaluations(1);
+            Estimate e = adaptiveInfluence(S, 1, stream, relativeError, z, maxSim, bestFresh);
+            estimateOf[u] = e;
+            double gain = e.mean, upper = gain + z * e.stdError;
+            if (upper < bestFresh) gain = upper;
+            else bestFresh = Math.max(bestFresh, gain);
+            Q.push(u, gain, 0);
+        }
+
+        Result result = new Result();
+        int size = 0;
+        double spread = 0;
+        int iteration = 0;
+
+        while (size < k && !Q.isEmpty()) {
+            long iterStart = System.currentTimeMillis();
+            int top = Q.peek();
+
+            if (Q.iteration[top] == iteration) {
+                Q.poll();
+                S[size++] = top;
+                result.seeds.add(nodeId(top));
+                Estimate e = estimateOf[top];
+                spread = e.mean;
+                double iterTime = (System.currentTimeMillis() - iterStart) / 1000.0;
+
+                IterationHistory h = new IterationHistory(iteration+1, nodeId(top),
+                    Q.gain[top], spread, iterTime, influenceEvaluations);
+                h.simulations = simulationsRun;
+                h.seedSimulations = e.simulations;
+                h.stdError = e.stdError;
+                seedSelected(result, h, "adaptive-celf", Q.size());
+
+                if (verbose) {
+                    System.out.printf("Seed %d/%d: Node %d | Spread: %s | Evals: %d | Sims: %d\n",
+                        size, k, nodeId(top), e, influenceEvaluations, simulationsRun);
+                }
+                iteration++;
+                bestFresh = Double.NEGATIVE_INFINITY;
+            } else {
+                S[size] = top;
+                countEvaluations(1);
+                Estimate e = adaptiveInfluence(S, size + 1, stream, relativeError, z, maxSim, spread + bestFresh);
+                estimateOf[top] = e;
+                double gain = e.mean - spread;
+                double upper = gain + z * e.stdError;
+                // Cut short below the best confirmed gain: keep the optimistic bound
+                if (upper < bestFresh) gain = upper;
+                else bestFresh = Math.max(bestFresh, gain);
+                reevaluated("adaptive-celf", iteration, top, Q.gain[top], gain, Q.size());
+                Q.push(top, gain, iteration);
+            }
+        }
+
+        result.totalTime = (System.currentTimeMillis() - start) / 1000.0;
+        result.totalEvaluations = influenceEvaluations;
+        result.threads = threads;
+
+        if (verbose) {
+            System.out.printf("\nTotal: %.2fs, %d evals, %d simulations (%.0f per evaluation)\n",
+                result.totalTime, result.totalEvaluations, simulationsRun,
+                (double) simulationsRun / result.totalEvaluations);
+        }
+        return result;
+    }
+
+    /**
+     * CELF++ (Goyal et al. 2011). Each candidate also carries its gain with
+     * respect to S plus the best candidate seen in the current round; when
+     * that candidate becomes the next seed the stored look-ahead gain is
+     * reused instead of re-simulating. Spreads are keyed by seed set on a
+     * fresh stream per call, as in celfIM, so both are scored on the same
+     * kind of noise and a repeated call simulates again.
+     */
+    public Result celfPlusPlusIM(int k, int numSim, boolean verbose) {
+        if (verbose) banner("CELF++ Algorithm (k=" + k + ", model=" + model.name() + ")");
+
+        long start = System.currentTimeMillis();
+        influenceEvaluations = 0;
+        simulationsRun = 0;
+        spreadCache.resetCounters();
+        long stream = random.nextLong();
+
+        // Look-ahead per node: mg2[u] is u's gain w.r.t. S + prevBest[u]
+        IndexedMaxHeap Q = new IndexedMaxHeap(numNodes);
+        double[] mg2 = new double[numNodes];
+        int[] prevBest = new int[numNodes];
+        Arrays.fill(prevBest, -1);
+        int[] S = new int[k + 2];
+        int curBest = -1;
+        for (int u = 0; u < numNodes; u++) {
+            S[0] = u;
+            double gain = keyedSpread(S, 1, numSim, stream);
+            if (curBest >= 0) {
+                S[1] = curBest;
+                prevBest[u] = curBest;
+                mg2[u] = keyedSpread(S, 2, numSim, stream) - Q.gain[curBest];
+            }
+            Q.push(u, gain, 0);
+            if (curBest < 0 || gain > Q.gain[curBest]) curBest = u;
+        }
+
+        Result result = new Result();
+        int size = 0, lastSeed = -1, saved = 0;
+        double spread = 0;
+
+        while (size < k && !Q.isEmpty()) {
+            long iterStart = System.currentTimeMillis();
+            int top = Q.peek();
+
+            if (Q.iteration[top] == size) {
+                Q.poll();
+                S[size++] = top;
+                lastSeed = top;
+                curBest = -1;
+                result.seeds.add(nodeId(top));
+                spread = keyedSpread(S, size, numSim, stream);
+                double iterTime = (System.currentTimeMillis() - iterStart) / 1000.0;
+
+                IterationHistory h = new IterationHistory(size, nodeId(top),
+                    Q.gain[top], spread, iterTime, influenceEvaluations);
+                h.simulations = simulationsRun;
+                h.evaluationsSaved = saved;
+                seedSelected(result, h, "celf++", Q.size());
+
+                if (verbose) {
+                    System.out.printf("Seed %d/%d: Node %d | Spread: %.2f | Evals: %d | Saved: %d\n",
+                        size, k, nodeId(top), spread, influenceEvaluations, saved);
+                }
+                continue;
+            }
+
+            double gain;
+            if (prevBest[top] == lastSeed && Q.iteration[top] == size - 1) {
+                gain = mg2[top];
+                saved++;
+            } else {
+                S[size] = top;
+                gain = keyedSpread(S, size + 1, numSim, stream) - spread;
+                prevBest[top] = -1;
+                if (curBest >= 0) {
+                    S[size + 1] = curBest;
+                    prevBest[top] = curBest;
+                    mg2[top] = keyedSpread(S, size + 2, numSim, stream) - spread - Q.gain[curBest];
+                }
+            }
+            reevaluated("celf++", size, top, Q.gain[top], gain, Q.size());
+            Q.push(top, gain, size);
+            if (curBest < 0 || gain > Q.gain[curBest]) curBest = top;
+        }
+
+        result.totalTime = (System.currentTimeMillis() - start) / 1000.0;
+        result.totalEvaluations = influenceEvaluations;
+        result.threads = threads;
+        result.cacheHits = spreadCache.hits();
+        result.cacheMisses = spreadCache.misses();
+
+        if (verbose) {
+            System.out.printf("\nTotal: %.2fs, %d evals, %d re-evaluations saved\n",
+                result.totalTime, result.totalEvaluations, saved);
+        }
+        return result;
+    }
+
+    /** Live-edge worlds sampled once per instance and reused while R stays the same. */
+    private LiveEdgeSnapshots snapshots(int numSnapshots) {
+        if (snapshots == null || snapshots.numWorlds != numSnapshots) {
+            snapshots = new LiveEdgeSnapshots(heapGraph("snapshot estimation"), model, numSnapshots, random.split());
+        }
+        return snapshots;
+    }
+
+    /** Spread of seeds averaged over the instance's pre-sampled live-edge worlds. */
+    public double estimateInfluenceOnSnapshots(Set<Integer> seeds, int numSnapshots) {
+        int[] dense = toDense(seeds);
+        return snapshots(numSnapshots).spread(dense, dense.length) + (seeds.size() - dense.length);
+    }
+
+    /**
+     * StaticGreedy: lazy greedy over R fixed live-edge worlds. Marginal gains
+     * count only nodes not already covered by S in each world, so the
+     * objective is exactly submodular and CELF's lazy bounds are never wrong.
+     */
+    public Result staticGreedyIM(int k, int numSnapshots, boolean verbose) {
+        if (verbose) banner("StaticGreedy (k=" + k + ", R=" + numSnapshots + ", model=" + model.name() + ")");
+
+        long start = System.currentTimeMillis();
+        LiveEdgeSnapshots worlds = snapshots(numSnapshots);
+        long[][] covered = worlds.newCoverage();
+        int evaluations = 0;
+
+        IndexedMaxHeap Q = new IndexedMaxHeap(numNodes);
+        for (int u = 0; u < numNodes; u++) {
+            Q.push(u, worlds.marginalGain(u, covered), 0);
+            evaluations++;
+        }
+        metrics.evaluations.add(numNodes);
+
+        Result result = new Result();
+        double spread = 0;
+        int iteration = 0;
+
+        while (iteration < k && !Q.isEmpty()) {
+            long iterStart = System.currentTimeMillis();
+            int top = Q.peek();
+
+            if (Q.iteration[top] == iteration) {
+                Q.poll();
+                spread += worlds.cover(top, covered);
+                result.seeds.add(nodeId(top));
+                double iterTime = (System.currentTimeMillis() - iterStart) / 1000.0;
+
+                IterationHistory h = new IterationHistory(iteration+1, nodeId(top),
+                    Q.gain[top], spread, iterTime, evaluations);
+                seedSelected(result, h, "static-greedy", Q.size());
+                if (verbose) System.out.println(h);
+                iteration++;
+            } else {
+                double gain = worlds.marginalGain(top, covered);
+                reevaluated("static-greedy", iteration, top, Q.gain[top], gain, Q.size());
+                Q.push(top, gain, iteration);
+                evaluations++;
+                metrics.evaluations.increment();
+            }
+        }
+
+        result.totalTime = (System.currentTimeMillis() - start) / 1000.0;
+        result.totalEvaluations = evaluations;
+
+        if (verbose) {
+            System.out.printf("\nTotal: %.2fs, %d evaluations over %d worlds\n",
+                result.totalTime, evaluations, numSnapshots);
         }
         return result;
     }
 
+    /**
+     * IMM seed selection over reverse-reachable sets. The result is a
+     * (1 - 1/e - epsilon)-approximation with probability at least 1 - delta;
+     * evaluations counts the RR sets sampled.
+     */
+    public Result immIM(int k, double epsilon, double delta, boolean verbose) {
+        if (verbose) banner("IMM (k=" + k + ", model=" + model.name() + ", eps=" + epsilon + ")");
+        return new IMMSelector(heapGraph("immIM"), model, random.split()).select(k, epsilon, delta, verbose);
+    }
+
+    /**
+     * DegreeDiscountIC on the edge probabilities: no simulation, a heap
+     * update per neighbour of each seed. totalSpread is the heuristic's own
+     * one-hop estimate; score the seeds with estimateInfluence to compare.
+     */
+    public Result degreeDiscountIM(int k, boolean verbose) {
+        if (verbose) banner("DegreeDiscount (k=" + k + ", model=" + model.name() + ")");
+        return HeuristicSelectors.degreeDiscount(heapGraph("degreeDiscountIM"), k, verbose);
+    }
+
+    /**
+     * The k highest PageRank nodes of the transposed, probability-weighted
+     * graph (damping 0.85). evaluations counts power iterations.
+     */
+    public Result pageRankIM(int k, boolean verbose) {
+        if (verbose) banner("PageRank (k=" + k + ", model=" + model.name() + ")");
+        return HeuristicSelectors.pageRank(heapGraph("pageRankIM"), k, 0.85, 1e-9, 100, verbose);
+    }
+
+    /**
+     * PMIA over maximum influence arborescences with path threshold theta
+     * (1/320 in the original paper). It assumes IC; under LT the weights
+     * are used as edge probabilities. totalSpread is the arborescence
+     * model's estimate and evaluations counts the trees built.
+     */
+    public Result pmiaIM(int k, double theta, boolean verbose) {
+        if (verbose) banner("PMIA (k=" + k + ", model=" + model.name() + ", theta=" + theta + ")");
+        return new PMIASelector(heapGraph("pmiaIM"), theta).select(k, verbose);
+    }
+
+    /** The header a verbose selector prints before its seeds. */
+    private static void banner(String title) {
+        System.out.println("\n" + "=".repeat(60));
+        System.out.println(title);
+        System.out.println("=".repeat(60));
+    }
+
     public int getNumNodes() { return numNodes; }
     public int getNumEdges() { return numEdges; }
-    public Set<Integer> getNodes() { return new HashSet<>(nodes); }
+    public String getModel() { return model.name(); }
+
+    public PropagationModel getPropagationModel() { return model; }
+    /** The heap graph; null when the graph is off the heap (see GraphIO.mapOffHeap). */
+    public CompactGraph getGraph() { return graph; }
+
+    /** Frees an off-heap graph; the instance must not be used afterwards. No-op for heap graphs. */
+    public void closeGraph() {
+        if (backend != null) backend.close();
+    }
+
+    public InfluenceMetrics getMetrics() { return metrics; }
+    public Set<Integer> getNodes() {
+        Set<Integer> ids = new HashSet<>();
+        if (builder != null) {
+            for (int v = 0; v < builder.numNodes(); v++) ids.add(builder.nodeId(v));
+        } else {
+            for (int v = 0; v < numNodes; v++) ids.add(nodeId(v));
+        }
+        return ids;
+    }
 }
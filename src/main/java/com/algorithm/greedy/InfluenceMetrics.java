@@ -0,0 +1,76 @@
+package com.algorithm.greedy;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters of one InfluenceMaximization instance, cumulative across
+ * runs until reset(). Simulation workers add to LongAdders and the
+ * selectors publish their queue size through a volatile, so another
+ * thread can poll snapshot() while a selection is running. A snapshot
+ * reads the counters one after the other, not atomically together.
+ */
+public final class InfluenceMetrics {
+    final LongAdder simulations = new LongAdder();
+    final LongAdder edgesTraversed = new LongAdder();
+    final LongAdder cacheHits = new LongAdder();
+    final LongAdder cacheMisses = new LongAdder();
+    final LongAdder evaluations = new LongAdder();
+    final LongAdder reevaluations = new LongAdder();
+    final LongAdder seedsSelected = new LongAdder();
+    volatile int queueSize;
+    private volatile long startNanos = System.nanoTime();
+
+    public Snapshot snapshot() {
+        return new Snapshot(this, (System.nanoTime() - startNanos) / 1e9);
+    }
+
+    public void reset() {
+        simulations.reset();
+        edgesTraversed.reset();
+        cacheHits.reset();
+        cacheMisses.reset();
+        evaluations.reset();
+        reevaluations.reset();
+        seedsSelected.reset();
+        queueSize = 0;
+        startNanos = System.nanoTime();
+    }
+
+    public static final class Snapshot {
+        public final long simulations, edgesTraversed, cacheHits, cacheMisses;
+        public final long evaluations, reevaluations, seedsSelected;
+        public final int queueSize;
+        public final double elapsedSeconds;
+
+        private Snapshot(InfluenceMetrics m, double elapsed) {
+            simulations = m.simulations.sum();
+            edgesTraversed = m.edgesTraversed.sum();
+            cacheHits = m.cacheHits.sum();
+            cacheMisses = m.cacheMisses.sum();
+            evaluations = m.evaluations.sum();
+            reevaluations = m.reevaluations.sum();
+            seedsSelected = m.seedsSelected.sum();
+            queueSize = m.queueSize;
+            elapsedSeconds = elapsed;
+        }
+
+        public double simulationsPerSecond() {
+            return elapsedSeconds > 0 ? simulations / elapsedSeconds : 0;
+        }
+
+        public double evaluationsPerSeed() {
+            return seedsSelected > 0 ? (double) evaluations / seedsSelected : 0;
+        }
+
+        public double cacheHitRate() {
+            long lookups = cacheHits + cacheMisses;
+            return lookups > 0 ? (double) cacheHits / lookups : 0;
+        }
+
+        public String toString() {
+            return String.format("%d sims (%.0f/s) | %d edges | %d evals (%.1f/seed) | cache %.1f%% | queue %d",
+                simulations, simulationsPerSecond(), edgesTraversed, evaluations, evaluationsPerSeed(),
+                100 * cacheHitRate(), queueSize);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.algorithm.greedy;
+
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP service over a resident InfluenceMaximization instance, on
+ * the JDK's built-in com.sun.net.httpserver:
+ *
+ *   GET /spread?seeds=1,2,3[&sims=1000][&deadline=ms]
+ *   GET /topk?k=10[&algorithm=celf|imm|degree|pagerank][&sims=300][&deadline=ms]
+ *   GET /stats
+ *
+ * Handlers run on virtual threads when the JDK has them (21+) and on a
+ * cached thread pool otherwise. They only parse and wait; one dispatcher
+ * thread owns the instance. It gathers the spread queries that arrive
+ * within a short window into one batch and estimates them together on
+ * keyed streams (see InfluenceMaximization.keyedSpreads), so an answer
+ * depends only on the seed set and simulation count, never on what it
+ * was batched with. Identical queries in flight share one job. A request
+ * still waiting at its deadline gets 504, and a job whose waiters have all
+ * given up is skipped rather than run.
+ */
+public class InfluenceServer {
+    static final int DEFAULT_SIMULATIONS = 1000;
+    static final long DEFAULT_DEADLINE_MS = 10_000;
+
+    private final InfluenceMaximization im;
+    private final long stream;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final Thread dispatcher;
+    private volatile boolean running;
+    private int maxBatch = 256;
+    private long lingerNanos = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final LinkedBlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+    private final ConcurrentHashMap<String, Job> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong(), coalesced = new AtomicLong(), expired = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong(), batchedQueries = new AtomicLong();
+
+    /** Serves im on port (0 picks a free one); spreads are keyed on stream 0. */
+    public InfluenceServer(InfluenceMaximization im, int port) throws IOException {
+        this(im, port, 0);
+    }
+
+    /** The instance must not be used by anyone else while the server runs. */
+    public InfluenceServer(InfluenceMaximization im, int port, long stream) throws IOException {
+        this.im = im;
+        this.stream = stream;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        handlers = handlerExecutor();
+        server.setExecutor(handlers);
+        server.createContext("/spread", this::spread);
+        server.createContext("/topk", this::topK);
+        server.createContext("/stats", exchange -> reply(exchange, 200, stats()));
+        dispatcher = new Thread(this::dispatch, "influence-dispatcher");
+        dispatcher.setDaemon(true);
+    }
+
+    /** Virtual thread per task on JDK 21+, otherwise a cached pool of daemon threads. */
+    static ExecutorService handlerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "influence-handler");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /** Up to maxBatch spread queries per batch, gathered for at most lingerMicros after the first. */
+    public void setBatching(int maxBatch, long lingerMicros) {
+        if (maxBatch < 1 || lingerMicros < 0) throw new IllegalArgumentException("need maxBatch >= 1, linger >= 0");
+        this.maxBatch = maxBatch;
+        this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+    }
+
+    public void start() {
+        running = true;
+        dispatcher.start();
+        server.start();
+    }
+
+    public void stop() {
+        running = false;
+        server.stop(0);
+        dispatcher.interrupt();
+        handlers.shutdownNow();
+    }
+
+    public int getPort() { return server.getAddress().getPort(); }
+    public long getRequests() { return requests.get(); }
+    public long getCoalesced() { return coalesced.get(); }
+    public long getBatches() { return batches.get(); }
+    public long getBatchedQueries() { return batchedQueries.get(); }
+    public long getExpired() { return expired.get(); }
+
+    /** A spread or top-k computation, shared by every request for the same key. */
+    private static final class Job {
+        final String key;
+        final List<Integer> seeds;
+        final String algorithm;
+        final int k, numSim;
+        // Latest deadline of any waiter (System.nanoTime)
+        final AtomicLong deadline;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+
+        Job(String key, List<Integer> seeds, String algorithm, int k, int numSim, long deadline) {
+            this.key = key; this.seeds = seeds; this.algorithm = algorithm;
+            this.k = k; this.numSim = numSim; this.deadline = new AtomicLong(deadline);
+        }
+
+        boolean isSpread() { return seeds != null; }
+    }
+
+    private void spread(HttpExchange exchange) throws IOException {
+        Map<String, String> q = query(exchange);
+        TreeSet<Integer> seeds = new TreeSet<>();
+        try {
+            for (String s : q.getOrDefault("seeds", "").split(",")) if (!s.isEmpty()) seeds.add(Integer.parseInt(s.trim()));
+            int numSim = positive(q, "sims", DEFAULT_SIMULATIONS);
+            long deadline = deadline(q);
+            String key = "spread:" + numSim + ":" + seeds;
+            await(exchange, submit(key, new ArrayList<>(seeds), null, 0, numSim, deadline), deadline);
+        } catch (IllegalArgumentException e) {
+            reply(exchange, 400, error(e.getMessage()));
+        }
+    }
+
+    private void topK(HttpExchange exchange) throws IOException {
+        Map<String, String> q = query(exchange);
+        try {
+            String algorithm = q.getOrDefault("algorithm", "celf");
+            if (!List.of("celf", "imm", "degree", "pagerank").contains(algorithm)) {
+                throw new IllegalArgumentException("unknown algorithm: " + algorithm);
+            }
+            int k = positive(q, "k", 10);
+            int numSim = positive(q, "sims", 300);
+            long deadline = deadline(q);
+            String key = "topk:" + algorithm + ":" + k + ":" + numSim;
+            await(exchange, submit(key, null, algorithm, k, numSim, deadline), deadline);
+        } catch (IllegalArgumentException e) {
+            reply(exchange, 400, error(e.getMessage()));
+        }
+    }
+
+    /** Joins the job in flight for key, or queues a new one. */
+    private Job submit(String key, List<Integer> seeds, String algorithm, int k, int numSim, long deadline) {
+        requests.incrementAndGet();
+        boolean[] created = {false};
+        Job job = inFlight.computeIfAbsent(key, x -> {
+            created[0] = true;
+            return new Job(key, seeds, algorithm, k, numSim, deadline);
+        });
+        if (created[0]) {
+            queue.add(job);
+        } else {
+            coalesced.incrementAndGet();
+            job.deadline.accumulateAndGet(deadline, Math::max);
+        }
+        return job;
+    }
+
+    private void await(HttpExchange exchange, Job job, long deadline) throws IOException {
+        try {
+            String body = job.result.get(remaining(deadline), TimeUnit.NANOSECONDS);
+            reply(exchange, 200, body);
+        } catch (TimeoutException e) {
+            expired.incrementAndGet();
+            reply(exchange, 504, error("deadline exceeded"));
+        } catch (ExecutionException e) {
+            // The dispatcher may drop an expired job before this wait times out
+            boolean late = e.getCause() instanceof TimeoutException;
+            if (late) expired.incrementAndGet();
+            reply(exchange, late ? 504 : 500, error(late ? "deadline exceeded" : String.valueOf(e.getCause())));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reply(exchange, 503, error("shutting down"));
+        }
+    }
+
+    private void dispatch() {
+        List<Job> batch = new ArrayList<>();
+        ArrayDeque<Job> topK = new ArrayDeque<>();
+        while (running) {
+            try {
+                Job first = topK.isEmpty() ? queue.take() : queue.poll();
+                if (first != null) {
+                    if (first.isSpread()) batch.add(first);
+                    else topK.add(first);
+                }
+                // Gather the spread queries arriving within the window
+                long end = System.nanoTime() + lingerNanos;
+                while (!batch.isEmpty() && batch.size() < maxBatch) {
+                    Job next = queue.poll(Math.max(0, end - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    if (next.isSpread()) batch.add(next);
+                    else topK.add(next);
+                }
+                if (!batch.isEmpty()) {
+                    try {
+                        runSpreads(batch);
+                    } catch (RuntimeException e) {
+                        for (Job job : batch) finish(job, null, e);
+                    }
+                    batch.clear();
+                }
+                if (!topK.isEmpty()) {
+                    Job job = topK.poll();
+                    try {
+                        runTopK(job);
+                    } catch (RuntimeException e) {
+                        finish(job, null, e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private boolean live(Job job) {
+        if (System.nanoTime() < job.deadline.get()) return true;
+        finish(job, null, new TimeoutException("deadline exceeded"));
+        return false;
+    }
+
+    private void runSpreads(List<Job> batch) {
+        List<Job> live = new ArrayList<>();
+        List<List<Integer>> sets = new ArrayList<>();
+        for (Job job : batch) {
+            if (!live(job)) continue;
+            live.add(job);
+            sets.add(job.seeds);
+        }
+        if (live.isEmpty()) return;
+        batches.incrementAndGet();
+        batchedQueries.addAndGet(live.size());
+        // Keyed streams make one keyedSpreads call per simulation count exact
+        Map<Integer, List<Integer>> bySims = new TreeMap<>();
+        for (int i = 0; i < live.size(); i++) bySims.computeIfAbsent(live.get(i).numSim, x -> new ArrayList<>()).add(i);
+        for (Map.Entry<Integer, List<Integer>> group : bySims.entrySet()) {
+            List<List<Integer>> groupSets = new ArrayList<>();
+            for (int i : group.getValue()) groupSets.add(sets.get(i));
+            double[] spreads = im.keyedSpreads(groupSets, group.getKey(), stream);
+            for (int j = 0; j < spreads.length; j++) {
+                Job job = live.get(group.getValue().get(j));
+                finish(job, String.format(Locale.ROOT, "{\"spread\":%s,\"simulations\":%d,\"batch\":%d}",
+                    spreads[j], job.numSim, live.size()), null);
+            }
+        }
+    }
+
+    private void runTopK(Job job) {
+        if (!live(job)) return;
+        InfluenceMaximization.Result r;
+        switch (job.algorithm) {
+            case "imm": r = im.immIM(job.k, 0.1, 1.0 / Math.max(2, im.getNumNodes()), false); break;
+            case "degree": r = im.degreeDiscountIM(job.k, false); break;
+            case "pagerank": r = im.pageRankIM(job.k, false); break;
+            default: r = im.celfIM(job.k, job.numSim, stream, null, false);
+        }
+        StringBuilder seeds = new StringBuilder();
+        for (InfluenceMaximization.IterationHistory h : r.history) {
+            if (seeds.length() > 0) seeds.append(',');
+            seeds.append(h.node);
+        }
+        double spread = im.keyedSpreads(List.of(r.seeds), job.numSim, stream)[0];
+        finish(job, String.format(Locale.ROOT, "{\"seeds\":[%s],\"spread\":%s,\"time\":%s}",
+            seeds, spread, r.totalTime), null);
+    }
+
+    private void finish(Job job, String body, Throwable error) {
+        inFlight.remove(job.key, job);
+        if (error == null) job.result.complete(body);
+        else job.result.completeExceptionally(error);
+    }
+
+    private String stats() {
+        return String.format(Locale.ROOT,
+            "{\"requests\":%d,\"coalesced\":%d,\"batches\":%d,\"batchedQueries\":%d,\"expired\":%d,\"nodes\":%d}",
+            requests.get(), coalesced.get(), batches.get(), batchedQueries.get(), expired.get(), im.getNumNodes());
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> q = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) return q;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                q.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                      URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return q;
+    }
+
+    private static int positive(Map<String, String> q, String name, int fallback) {
+        int v = q.containsKey(name) ? Integer.parseInt(q.get(name)) : fallback;
+        if (v < 1) throw new IllegalArgumentException(name + " must be >= 1");
+        return v;
+    }
+
+    private static long deadline(Map<String, String> q) {
+        long ms = q.containsKey("deadline") ? Long.parseLong(q.get("deadline")) : DEFAULT_DEADLINE_MS;
+        if (ms < 0) throw new IllegalArgumentException("deadline must be >= 0");
+        // A deadline past the end of the nanoTime range means no deadline, not one in the past
+        try {
+            return Math.addExact(System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(ms));
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /** Nanoseconds left until deadline, saturating instead of wrapping. */
+    private static long remaining(long deadline) {
+        long now = System.nanoTime();
+        try {
+            return Math.max(0, Math.subtractExact(deadline, now));
+        } catch (ArithmeticException e) {
+            return deadline > now ? Long.MAX_VALUE : 0;
+        }
+    }
+
+    private static String error(String message) {
+        return "{\"error\":\"" + String.valueOf(message).replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /** Args: [port] [edge list, or BA node count] [model]; default 8080, BA(10000, 3), IC. */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        String graph = args.length > 1 ? args[1] : "10000";
+        String model = args.length > 2 ? args[2] : "IC";
+        InfluenceMaximization im = graph.matches("\\d+")
+            ? new GraphGenerator(42).generateBarabasiAlbert(Integer.parseInt(graph), 3, model)
+            : GraphIO.loadEdgeList(java.nio.file.Paths.get(graph), model, 42);
+        im.setParallelism(Runtime.getRuntime().availableProcessors());
+        InfluenceServer server = new InfluenceServer(im, port);
+        server.start();
+        System.out.println("Serving " + im.getNumNodes() + " nodes, " + im.getNumEdges() + " edges ("
+            + model + ") on http://localhost:" + server.getPort() + "/");
+    }
+}
@@ -0,0 +1,59 @@
+package com.algorithm.greedy;
+
+/**
+ * Open-addressing int -> int map used to assign dense node ids
+ * without boxing every endpoint passed to addEdge.
+ */
+final class IntIntHashMap {
+    private int[] keys;
+    private int[] values;   // stored as value + 1, 0 marks an empty slot
+    private int size, mask;
+
+    IntIntHashMap(int expected) {
+        int cap = 16;
+        while (cap < expected * 2) cap <<= 1;
+        keys = new int[cap];
+        values = new int[cap];
+        mask = cap - 1;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    int get(int key, int missing) {
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (values[i] == 0) return missing;
+            if (keys[i] == key) return values[i] - 1;
+        }
+    }
+
+    /** Returns the value already mapped to key, or maps it to value and returns value. */
+    int putIfAbsent(int key, int value) {
+        int i = hash(key) & mask;
+        for (; values[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i] - 1;
+        }
+        keys[i] = key;
+        values[i] = value + 1;
+        if (++size * 2 > keys.length) rehash();
+        return value;
+    }
+
+    int size() { return size; }
+
+    private void rehash() {
+        int[] oldKeys = keys, oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] == 0) continue;
+            int i = hash(oldKeys[j]) & mask;
+            while (values[i] != 0) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+
+/**
+ * Linear Threshold: v draws a uniform threshold and becomes active once the
+ * in-weights of its active in-neighbours reach it. Graphs without
+ * parameters get random in-weights scaled to sum to 1/1.1. The live-edge
+ * form keeps at most one in-edge per node, picked with its weight.
+ */
+public class LinearThreshold extends TriggeringModel {
+
+    @Override
+    public String name() { return "LT"; }
+
+    @Override
+    public EdgeWeights assignWeights(CompactGraph g, SplittableRandom random) {
+        Scales scales = new Scales(g, g.numNodes);
+        for (int v = 0; v < g.numNodes; v++) {
+            int from = g.inOffsets[v], to = g.inEnds[v];
+            if (to > from) {
+                double[] w = new double[to - from];
+                double sum = 0;
+                for (int i = 0; i < w.length; i++) {
+                    w[i] = random.nextDouble();
+                    sum += w[i];
+                }
+                for (int i = 0; i < w.length; i++) {
+                    g.setInProbability(from + i, w[i] / (sum * 1.1));
+                }
+                scales.scale[v] = sum * 1.1;
+            }
+        }
+        return scales;
+    }
+
+    @Override
+    public EdgeWeights keepWeights(CompactGraph g) {
+        return new Scales(g, 0);
+    }
+
+    /**
+     * Keeps 1.1 x the raw in-weight total of each node (NaN: unknown), so a
+     * new in-edge can be weighted without renormalising from scratch. A new
+     * edge draws a raw weight and the others are rescaled so the total
+     * stays 1/1.1.
+     */
+    private static final class Scales implements EdgeWeights {
+        private final CompactGraph g;
+        private double[] scale;
+
+        Scales(CompactGraph g, int n) {
+            this.g = g;
+            scale = new double[n];
+        }
+
+        /** Scale of v; graphs loaded with weights get the expected 1.1 * inDeg / 2. */
+        private double scale(int v, int inDegree) {
+            if (scale.length <= v) {
+                int old = scale.length;
+                scale = Arrays.copyOf(scale, Math.max(Math.max(16, v + 1), old + (old >> 1)));
+                Arrays.fill(scale, old, scale.length, Double.NaN);
+            }
+            if (Double.isNaN(scale[v])) scale[v] = 0.55 * inDegree;
+            return scale[v];
+        }
+
+        @Override
+        public void inEdgeAdded(int v, int slot, SplittableRandom random) {
+            double old = scale(v, g.inDegree(v) - 1), raw = random.nextDouble();
+            double next = old + 1.1 * raw;
+            rescale(v, old / next);
+            g.setInProbability(slot, raw / next);
+            scale[v] = next;
+        }
+
+        @Override
+        public void inEdgeRemoved(int v, double weight) {
+            double old = scale(v, g.inDegree(v) + 1);
+            // The raw weight of the edge was weight * old
+            double left = 1 - 1.1 * weight;
+            if (g.inDegree(v) == 0) {
+                scale[v] = 0;
+            } else if (left > 1e-12) {
+                rescale(v, 1 / left);
+                scale[v] = old * left;
+            } else {
+                scale[v] = Double.NaN;
+            }
+        }
+
+        private void rescale(int v, double factor) {
+            for (int i = g.inOffsets[v]; i < g.inEnds[v]; i++) g.setInProbability(i, g.inProbs[i] * factor);
+        }
+    }
+
+    @Override
+    protected int sampleTriggeringSet(CompactGraph g, int v, int[] into, SplittableRandom rng) {
+        double r = rng.nextDouble();
+        for (int i = g.inOffsets[v]; i < g.inEnds[v]; i++) {
+            r -= g.inProbs[i];
+            if (r < 0) {
+                into[0] = i;
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public Simulator simulator(CompactGraph g) {
+        return new ThresholdSimulator(g);
+    }
+
+    @Override
+    public void sampleLiveEdges(CompactGraph g, boolean[] live, SplittableRandom rng) {
+        // Each node keeps at most one in-edge, picked with its weight
+        for (int v = 0; v < g.numNodes; v++) {
+            double r = rng.nextDouble();
+            for (int i = g.inOffsets[v]; i < g.inEnds[v]; i++) {
+                r -= g.inProbs[i];
+                if (r < 0) {
+                    live[g.inToOut[i]] = true;
+                    break;
+                }
+            }
+        }
+    }
+
+    /** With one live in-edge per node the RR set is a walk back from root until it loops or stops. */
+    @Override
+    public ReverseSampler reverseSampler(CompactGraph g) {
+        return new ReverseSampler(g.numNodes) {
+            @Override
+            public int sample(int root, SplittableRandom rng) {
+                int stamp = nextEpoch();
+                visitMark[root] = stamp;
+                nodes[0] = root;
+                int size = 1, v = root;
+                while (true) {
+                    double r = rng.nextDouble();
+                    int next = -1;
+                    for (int i = g.inOffsets[v], end = g.inEnds[v]; i < end; i++) {
+                        r -= g.inProbs[i];
+                        if (r < 0) {
+                            next = g.inSources[i];
+                            break;
+                        }
+                    }
+                    if (next < 0 || visitMark[next] == stamp) return size;
+                    visitMark[next] = stamp;
+                    nodes[size++] = next;
+                    v = next;
+                }
+            }
+        };
+    }
+
+    /** v's live in-edge in a world: binary search of its draw over the row's running weight. */
+    @Override
+    public WorldSampler worldSampler(CompactGraph g) {
+        double[] cumulative = new double[g.inSources.length];
+        for (int v = 0; v < g.numNodes; v++) {
+            double run = 0;
+            for (int i = g.inOffsets[v]; i < g.inEnds[v]; i++) cumulative[i] = run += g.inProbs[i];
+        }
+        long nodeBase = g.outTargets.length;
+        return (u, e, world) -> {
+            int v = g.outTargets[e];
+            double r = WorldSampler.uniform(world, nodeBase + v);
+            int lo = g.inOffsets[v], hi = g.inEnds[v];
+            if (hi == lo || r >= cumulative[hi - 1]) return false;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cumulative[mid] > r) hi = mid;
+                else lo = mid + 1;
+            }
+            return g.inToOut[lo] == e;
+        };
+    }
+
+    /**
+     * Cascades driven by the frontier: each newly active node pushes its
+     * out-edge weights into the targets' accumulated weight. A threshold is
+     * drawn the first time a node is touched, which has the same distribution
+     * as drawing all of them up front, so the cost is the edges actually used.
+     */
+    private static final class ThresholdSimulator extends Simulator {
+        private final CompactGraph g;
+        // Thresholds and accumulated in-weight are valid where touched holds the epoch
+        private final int[] touched, active, queue;
+        private final double[] thresholds, weight;
+        private int epoch;
+
+        ThresholdSimulator(CompactGraph g) {
+            this.g = g;
+            int n = g.numNodes;
+            touched = new int[n];
+            active = new int[n];
+            queue = new int[n];
+            thresholds = new double[n];
+            weight = new double[n];
+        }
+
+        @Override
+        public long run(int[] seeds, int numSeeds, int numSim, SplittableRandom rng) {
+            long total = 0;
+            for (int i = 0; i < numSim; i++) total += simulate(seeds, numSeeds, rng);
+            return total;
+        }
+
+        private int simulate(int[] seeds, int numSeeds, SplittableRandom rng) {
+            if (++epoch == 0) {
+                Arrays.fill(touched, 0);
+                Arrays.fill(active, 0);
+                epoch = 1;
+            }
+            int stamp = epoch;
+            int head = 0, tail = 0;
+            for (int i = 0; i < numSeeds; i++) {
+                int s = seeds[i];
+                if (active[s] != stamp) {
+                    active[s] = stamp;
+                    queue[tail++] = s;
+                }
+            }
+
+            while (head < tail) {
+                int u = queue[head++];
+                edges += g.outEnds[u] - g.outOffsets[u];
+                for (int e = g.outOffsets[u], end = g.outEnds[u]; e < end; e++) {
+                    int v = g.outTargets[e];
+                    if (active[v] == stamp) continue;
+                    if (touched[v] != stamp) {
+                        touched[v] = stamp;
+                        thresholds[v] = rng.nextDouble();
+                        weight[v] = 0.0;
+                    }
+                    weight[v] += g.outProbs[e];
+                    if (weight[v] >= thresholds[v]) {
+                        active[v] = stamp;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+            return tail;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+
+/**
+ * R pre-sampled live-edge worlds (StaticGreedy, Cheng et al. 2013).
+ * Spread is reachability inside the fixed worlds, so every candidate is
+ * scored on the same random numbers.
+ *
+ * Nodes of a strongly connected component reach the same set, so each
+ * world is stored condensed: component[w][v] is v's component, size[w][c]
+ * the number of nodes in component c, and offsets/targets the DAG of live
+ * edges between components in CSR form. Components are numbered in the
+ * order Tarjan's algorithm closes them, so every DAG edge goes from a
+ * higher id to a lower one. Queries walk the DAG and coverage is kept per
+ * component; graphs with large SCCs (symmetric edges, as the generators
+ * produce) shrink to a fraction of their live edges. A world whose
+ * components absorb fewer than a tenth of the nodes is not worth the
+ * component map: it keeps its live edges on node ids and shares one
+ * identity map and unit sizes, costing no more than a plain live-edge CSR.
+ */
+class LiveEdgeSnapshots {
+    final int numNodes, numWorlds;
+    final int[][] component, size, offsets, targets;
+    private long liveEdges;
+    private int[] identity, ones;
+
+    private final int[] visitMark, queue;
+    private int epoch;
+
+    LiveEdgeSnapshots(CompactGraph g, PropagationModel model, int numWorlds, SplittableRandom rng) {
+        this.numNodes = g.numNodes;
+        this.numWorlds = numWorlds;
+        int n = numNodes;
+        component = new int[numWorlds][];
+        size = new int[numWorlds][];
+        offsets = new int[numWorlds][];
+        targets = new int[numWorlds][];
+        visitMark = new int[n];
+        queue = new int[n];
+
+        boolean[] live = new boolean[g.outTargets.length];
+        // Live-edge CSR of the current world, reused across worlds
+        int[] liveOff = new int[n + 1];
+        int[] liveTgt = new int[16];
+        Condenser condenser = new Condenser(n);
+        for (int w = 0; w < numWorlds; w++) {
+            Arrays.fill(live, false);
+            model.sampleLiveEdges(g, live, rng);
+
+            int j = 0;
+            for (int u = 0; u < n; u++) {
+                for (int e = g.outOffsets[u]; e < g.outEnds[u]; e++) {
+                    if (!live[e]) continue;
+                    if (j == liveTgt.length) liveTgt = Arrays.copyOf(liveTgt, j * 2);
+                    liveTgt[j++] = g.outTargets[e];
+                }
+                liveOff[u + 1] = j;
+            }
+            liveEdges += j;
+            condenser.condense(liveOff, liveTgt);
+            if (condenser.numComponents > n - n / 10) {
+                if (identity == null) {
+                    identity = new int[n];
+                    ones = new int[n];
+                    for (int v = 0; v < n; v++) identity[v] = v;
+                    Arrays.fill(ones, 1);
+                }
+                component[w] = identity;
+                size[w] = ones;
+                offsets[w] = Arrays.copyOf(liveOff, n + 1);
+                targets[w] = Arrays.copyOf(liveTgt, j);
+                continue;
+            }
+            component[w] = condenser.component();
+            size[w] = condenser.sizes();
+            offsets[w] = condenser.dagOffsets();
+            targets[w] = condenser.dagTargets();
+        }
+    }
+
+    /** Iterative Tarjan SCC over a CSR graph, plus the condensation DAG. Scratch is reused. */
+    private static final class Condenser {
+        private final int n;
+        private final int[] order, low, edge, stack, calls, members, memberStart, comp, seen;
+        int numComponents;
+        private int[] dagOff, dagTgt = new int[16];
+        int dagEdges;
+
+        Condenser(int n) {
+            this.n = n;
+            order = new int[n];
+            low = new int[n];
+            edge = new int[n];
+            stack = new int[n];
+            calls = new int[n];
+            members = new int[n];
+            memberStart = new int[n + 1];
+            comp = new int[n];
+            seen = new int[n];
+            dagOff = new int[n + 1];
+        }
+
+        void condense(int[] off, int[] tgt) {
+            Arrays.fill(order, 0);
+            Arrays.fill(comp, -1);
+            int counter = 0, sp = 0, filled = 0;
+            numComponents = 0;
+            for (int s = 0; s < n; s++) {
+                if (order[s] != 0) continue;
+                int cp = 0;
+                order[s] = low[s] = ++counter;
+                edge[s] = off[s];
+                stack[sp++] = s;
+                calls[cp++] = s;
+                while (cp > 0) {
+                    int u = calls[cp - 1];
+                    if (edge[u] < off[u + 1]) {
+                        int v = tgt[edge[u]++];
+                        if (order[v] == 0) {
+                            order[v] = low[v] = ++counter;
+                            edge[v] = off[v];
+                            stack[sp++] = v;
+                            calls[cp++] = v;
+                        } else if (comp[v] < 0 && order[v] < low[u]) {
+                            low[u] = order[v];
+                        }
+                        continue;
+                    }
+                    cp--;
+                    if (low[u] == order[u]) {
+                        // u is the root of a component: pop it off the stack
+                        memberStart[numComponents] = filled;
+                        int v;
+                        do {
+                            v = stack[--sp];
+                            comp[v] = numComponents;
+                            members[filled++] = v;
+                        } while (v != u);
+                        numComponents++;
+                    }
+                    if (cp > 0 && low[u] < low[calls[cp - 1]]) low[calls[cp - 1]] = low[u];
+                }
+            }
+            memberStart[numComponents] = filled;
+
+            // DAG edges of each component, without duplicates or self-loops
+            Arrays.fill(seen, 0, numComponents, -1);
+            dagEdges = 0;
+            for (int c = 0; c < numComponents; c++) {
+                dagOff[c] = dagEdges;
+                for (int m = memberStart[c]; m < memberStart[c + 1]; m++) {
+                    int u = members[m];
+                    for (int e = off[u]; e < off[u + 1]; e++) {
+                        int d = comp[tgt[e]];
+                        if (d == c || seen[d] == c) continue;
+                        seen[d] = c;
+                        if (dagEdges == dagTgt.length) dagTgt = Arrays.copyOf(dagTgt, dagEdges * 2);
+                        dagTgt[dagEdges++] = d;
+                    }
+                }
+            }
+            dagOff[numComponents] = dagEdges;
+        }
+
+        int[] component() { return comp.clone(); }
+        int[] dagOffsets() { return Arrays.copyOf(dagOff, numComponents + 1); }
+        int[] dagTargets() { return Arrays.copyOf(dagTgt, dagEdges); }
+
+        int[] sizes() {
+            int[] s = new int[numComponents];
+            for (int c = 0; c < numComponents; c++) s[c] = memberStart[c + 1] - memberStart[c];
+            return s;
+        }
+    }
+
+    private int nextEpoch() {
+        if (++epoch == 0) {
+            Arrays.fill(visitMark, 0);
+            epoch = 1;
+        }
+        return epoch;
+    }
+
+    /**
+     * Number of nodes reachable from seeds in world w that are not yet
+     * covered; when commit is true their components are marked covered.
+     */
+    int reach(int w, int[] seeds, int numSeeds, long[] covered, boolean commit) {
+        int[] comp = component[w], sz = size[w], off = offsets[w], tgt = targets[w];
+        int stamp = nextEpoch();
+        int head = 0, tail = 0, total = 0;
+        for (int i = 0; i < numSeeds; i++) {
+            int c = comp[seeds[i]];
+            if (visitMark[c] != stamp && !isSet(covered, c)) {
+                visitMark[c] = stamp;
+                queue[tail++] = c;
+            }
+        }
+        while (head < tail) {
+            int c = queue[head++];
+            total += sz[c];
+            for (int e = off[c], end = off[c + 1]; e < end; e++) {
+                int d = tgt[e];
+                if (visitMark[d] != stamp && !isSet(covered, d)) {
+                    visitMark[d] = stamp;
+                    queue[tail++] = d;
+                }
+            }
+        }
+        if (commit && covered != null) {
+            for (int i = 0; i < tail; i++) covered[queue[i] >>> 6] |= 1L << queue[i];
+        }
+        return total;
+    }
+
+    private static boolean isSet(long[] bits, int i) {
+        return bits != null && (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /** Average spread of a seed set over all worlds. */
+    double spread(int[] seeds, int numSeeds) {
+        long total = 0;
+        for (int w = 0; w < numWorlds; w++) total += reach(w, seeds, numSeeds, null, false);
+        return (double) total / numWorlds;
+    }
+
+    /** Coverage bits per world, one per component. */
+    long[][] newCoverage() {
+        long[][] covered = new long[numWorlds][];
+        for (int w = 0; w < numWorlds; w++) covered[w] = new long[(size[w].length + 63) >>> 6];
+        return covered;
+    }
+
+    /** Average number of uncovered nodes u reaches, over all worlds. */
+    double marginalGain(int u, long[][] covered) {
+        int[] single = {u};
+        long total = 0;
+        for (int w = 0; w < numWorlds; w++) total += reach(w, single, 1, covered[w], false);
+        return (double) total / numWorlds;
+    }
+
+    /** Marks everything u reaches as covered and returns the average gain. */
+    double cover(int u, long[][] covered) {
+        int[] single = {u};
+        long total = 0;
+        for (int w = 0; w < numWorlds; w++) total += reach(w, single, 1, covered[w], true);
+        return (double) total / numWorlds;
+    }
+
+    /** Live edges sampled over all worlds, before condensation. */
+    long liveEdges() { return liveEdges; }
+
+    /** Components plus DAG edges kept over all worlds. */
+    long condensedSize() {
+        long total = 0;
+        for (int w = 0; w < numWorlds; w++) total += size[w].length + targets[w].length;
+        return total;
+    }
+}
@@ -0,0 +1,279 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+
+/**
+ * PMIA seed selection (Chen, Wang and Wang 2010). Influence to each root v
+ * is assumed to travel only along maximum-probability paths, which form
+ * the in-arborescence MIIA(v): every node whose best path to v has
+ * probability at least theta. Seeds block the paths through them, so a
+ * tree is rebuilt when a new seed lands inside it.
+ *
+ * On a tree, ap(w) is the chance w gets activated by the seeds and
+ * alpha(v, w) is how much v's activation grows per unit of w's; a
+ * candidate's incremental influence is the sum of alpha(v, w)(1 - ap(w))
+ * over the trees containing it. Picking a seed only touches the trees
+ * that contain it.
+ */
+class PMIASelector {
+    private final CompactGraph g;
+    private final int n;
+    private final double theta;
+
+    // MIIA(v) in Dijkstra order: node, index of its parent (towards v), edge probability
+    private final int[][] treeNodes, treeParent;
+    private final double[][] treeProb;
+    // containing[u][0 .. containingSize[u]) lists roots whose tree held u when built
+    private final int[][] containing;
+    private final int[] containingSize;
+
+    private final boolean[] inS;
+    private final double[] incInf;
+    // Largest in-edge probability per node: lets Dijkstra skip in-lists no path can survive
+    private final double[] maxInProb;
+
+    // Dijkstra scratch, reset by epoch
+    private final int[] mark, settled, pred;
+    private final double[] best, edgeProb;
+    private int epoch;
+    private final int[] member;
+    private int memberStamp;
+    private int[] heapNode = new int[64];
+    private double[] heapKey = new double[64];
+    private int heapSize;
+    // Tree under construction, and the per-tree ap / alpha buffers of contribute
+    private int[] scratchNodes = new int[64], scratchParent = new int[64];
+    private double[] scratchProb = new double[64];
+    private double[] keep = new double[64], ap = new double[64], alpha = new double[64];
+
+    PMIASelector(CompactGraph g, double theta) {
+        if (theta <= 0 || theta >= 1) throw new IllegalArgumentException("need 0 < theta < 1");
+        this.g = g;
+        this.n = g.numNodes;
+        this.theta = theta;
+        treeNodes = new int[n][];
+        treeParent = new int[n][];
+        treeProb = new double[n][];
+        containing = new int[n][];
+        containingSize = new int[n];
+        inS = new boolean[n];
+        incInf = new double[n];
+        mark = new int[n];
+        settled = new int[n];
+        pred = new int[n];
+        best = new double[n];
+        edgeProb = new double[n];
+        maxInProb = new double[n];
+        member = new int[n];
+        for (int v = 0; v < n; v++) {
+            for (int i = g.inOffsets[v]; i < g.inEnds[v]; i++) {
+                maxInProb[v] = Math.max(maxInProb[v], g.inProbs[i]);
+            }
+        }
+    }
+
+    InfluenceMaximization.Result select(int k, boolean verbose) {
+        long start = System.currentTimeMillis();
+        for (int v = 0; v < n; v++) {
+            buildTree(v);
+            contribute(v, 1);
+        }
+
+        InfluenceMaximization.Result result = new InfluenceMaximization.Result();
+        int[] touched = new int[n];
+        int[] touchedMark = new int[n];
+        double spread = 0;
+        int rebuilt = 0;
+        for (int i = 0; i < Math.min(k, n); i++) {
+            int u = -1;
+            for (int v = 0; v < n; v++) {
+                if (!inS[v] && (u < 0 || incInf[v] > incInf[u])) u = v;
+            }
+            double gain = incInf[u];
+
+            // Roots whose current tree contains u; contributions are withdrawn under the old S
+            int count = 0;
+            for (int j = 0; j < containingSize[u]; j++) {
+                int v = containing[u][j];
+                if (touchedMark[v] == i + 1 || inS[v] || !treeContains(v, u)) continue;
+                touchedMark[v] = i + 1;
+                touched[count++] = v;
+                contribute(v, -1);
+            }
+            inS[u] = true;
+            for (int j = 0; j < count; j++) {
+                int v = touched[j];
+                if (v == u) continue;
+                buildTree(v);
+                contribute(v, 1);
+            }
+            rebuilt += count;
+
+            spread += gain;
+            result.seeds.add(g.nodeId(u));
+            InfluenceMaximization.IterationHistory h = new InfluenceMaximization.IterationHistory(
+                i + 1, g.nodeId(u), gain, spread, (System.currentTimeMillis() - start) / 1000.0, n + rebuilt);
+            result.history.add(h);
+            if (verbose) System.out.println(h);
+        }
+        result.totalTime = (System.currentTimeMillis() - start) / 1000.0;
+        // Evaluations count the arborescences built
+        result.totalEvaluations = n + rebuilt;
+        return result;
+    }
+
+    private boolean treeContains(int v, int u) {
+        for (int w : treeNodes[v]) if (w == u) return true;
+        return false;
+    }
+
+    /** Reverse Dijkstra from v on -log p, keeping paths of probability >= theta that avoid seeds. */
+    private void buildTree(int v) {
+        if (++epoch == 0) {
+            Arrays.fill(mark, 0);
+            Arrays.fill(settled, 0);
+            epoch = 1;
+        }
+        int stamp = epoch;
+        int[] nodes = scratchNodes, parent = scratchParent;
+        double[] prob = scratchProb;
+        int size = 0;
+
+        heapSize = 0;
+        mark[v] = stamp;
+        best[v] = 1;
+        pred[v] = -1;
+        edgeProb[v] = 1;
+        push(v, 1);
+        while (heapSize > 0) {
+            double p = heapKey[0];
+            int x = pop();
+            if (settled[x] == stamp || p < best[x]) continue;
+            settled[x] = stamp;
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                parent = Arrays.copyOf(parent, size * 2);
+                prob = Arrays.copyOf(prob, size * 2);
+            }
+            int index = size++;
+            nodes[index] = x;
+            parent[index] = pred[x];
+            prob[index] = edgeProb[x];
+            // Seeds are leaves: influence does not pass through an already active node
+            if (inS[x] || p * maxInProb[x] < theta) continue;
+            for (int i = g.inOffsets[x]; i < g.inEnds[x]; i++) {
+                int w = g.inSources[i];
+                double q = p * g.inProbs[i];
+                if (q < theta || settled[w] == stamp) continue;
+                if (mark[w] != stamp || q > best[w]) {
+                    mark[w] = stamp;
+                    best[w] = q;
+                    pred[w] = index;
+                    edgeProb[w] = g.inProbs[i];
+                    push(w, q);
+                }
+            }
+        }
+        scratchNodes = nodes;
+        scratchParent = parent;
+        scratchProb = prob;
+        // A rebuilt tree only registers nodes its previous version did not hold
+        int[] old = treeNodes[v];
+        if (++memberStamp == 0) {
+            Arrays.fill(member, 0);
+            memberStamp = 1;
+        }
+        if (old != null) for (int w : old) member[w] = memberStamp;
+        for (int j = 0; j < size; j++) if (member[nodes[j]] != memberStamp) addContaining(nodes[j], v);
+        treeNodes[v] = Arrays.copyOf(nodes, size);
+        treeParent[v] = Arrays.copyOf(parent, size);
+        treeProb[v] = Arrays.copyOf(prob, size);
+    }
+
+    private void addContaining(int u, int root) {
+        int[] list = containing[u];
+        if (list == null) list = containing[u] = new int[4];
+        else if (containingSize[u] == list.length) list = containing[u] = Arrays.copyOf(list, list.length * 2);
+        list[containingSize[u]++] = root;
+    }
+
+    /** Adds sign * alpha(v, w)(1 - ap(w)) to incInf[w] for every non-seed w in MIIA(v). */
+    private void contribute(int v, int sign) {
+        int[] nodes = treeNodes[v], parent = treeParent[v];
+        double[] prob = treeProb[v];
+        int size = nodes.length;
+        // Children come after their parent in Dijkstra order, so one backward
+        // pass folds them in: keep[x] = product over children c of (1 - ap(c) p(c, x))
+        // (NaN marks a node with no children yet)
+        if (keep.length < size) {
+            keep = new double[size * 2];
+            ap = new double[size * 2];
+            alpha = new double[size * 2];
+        }
+        double[] keep = this.keep, ap = this.ap, alpha = this.alpha;
+        Arrays.fill(keep, 0, size, Double.NaN);
+        for (int j = size - 1; j >= 0; j--) {
+            int w = nodes[j];
+            ap[j] = inS[w] ? 1 : (Double.isNaN(keep[j]) ? 0 : 1 - keep[j]);
+            int x = parent[j];
+            if (x >= 0) keep[x] = (Double.isNaN(keep[x]) ? 1 : keep[x]) * (1 - ap[j] * prob[j]);
+        }
+        alpha[0] = 1;
+        for (int j = 0; j < size; j++) {
+            int x = parent[j];
+            if (x >= 0) {
+                if (inS[nodes[x]]) alpha[j] = 0;
+                else alpha[j] = alpha[x] * prob[j] * siblingsKeep(nodes, parent, prob, ap, keep, x, j);
+            }
+            if (!inS[nodes[j]]) incInf[nodes[j]] += sign * alpha[j] * (1 - ap[j]);
+        }
+    }
+
+    /** keep[x] without child j's factor. */
+    private static double siblingsKeep(int[] nodes, int[] parent, double[] prob, double[] ap,
+                                       double[] keep, int x, int j) {
+        double own = 1 - ap[j] * prob[j];
+        if (own > 1e-9) return keep[x] / own;
+        double product = 1;
+        for (int c = x + 1; c < nodes.length; c++) {
+            if (c != j && parent[c] == x) product *= 1 - ap[c] * prob[c];
+        }
+        return product;
+    }
+
+    private void push(int node, double key) {
+        if (heapSize == heapNode.length) {
+            heapNode = Arrays.copyOf(heapNode, heapSize * 2);
+            heapKey = Arrays.copyOf(heapKey, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (heapKey[p] >= key) break;
+            heapNode[i] = heapNode[p];
+            heapKey[i] = heapKey[p];
+            i = p;
+        }
+        heapNode[i] = node;
+        heapKey[i] = key;
+    }
+
+    private int pop() {
+        int top = heapNode[0];
+        int node = heapNode[--heapSize];
+        double key = heapKey[heapSize];
+        int i = 0;
+        while (true) {
+            int c = 2 * i + 1;
+            if (c >= heapSize) break;
+            if (c + 1 < heapSize && heapKey[c + 1] > heapKey[c]) c++;
+            if (key >= heapKey[c]) break;
+            heapNode[i] = heapNode[c];
+            heapKey[i] = heapKey[c];
+            i = c;
+        }
+        heapNode[i] = node;
+        heapKey[i] = key;
+        return top;
+    }
+}
@@ -0,0 +1,128 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+
+/**
+ * A diffusion model: how edge parameters are assigned and kept current,
+ * and the kernels that sample cascades under it. Each model brings its own
+ * loops, so the hot code is monomorphic and inlines fully; callers dispatch
+ * once per batch of cascades or per sample, never per edge. The selectors
+ * only see this interface, so a new model runs under greedyIM, celfIM and
+ * the rest without touching their loops.
+ *
+ * Spread is the number of nodes ever active. Every model here also has a
+ * live-edge form, a random subgraph whose reachability has the cascade's
+ * distribution; the snapshot, RR-set and shared-world estimators use it.
+ *
+ * Implementations: IndependentCascade (uniform p), WeightedCascade (p = 1 /
+ * in-degree; "IC" has always meant this here), LinearThreshold, SIRModel,
+ * and TriggeringModel as the general case to extend.
+ */
+public interface PropagationModel {
+    /** Name as accepted by of(); stored in checkpoints and printed in reports. */
+    String name();
+
+    /** Sets the edge parameters of a graph that has none; returns what keeps them current. */
+    EdgeWeights assignWeights(CompactGraph g, SplittableRandom random);
+
+    /** Keeps the parameters a graph already carries (e.g. read by GraphIO) current under updates. */
+    EdgeWeights keepWeights(CompactGraph g);
+
+    /** Forward cascade kernel with its own scratch, for one thread. */
+    Simulator simulator(CompactGraph g);
+
+    /** Marks the out-edge slots that are live in one random world. */
+    void sampleLiveEdges(CompactGraph g, boolean[] live, SplittableRandom rng);
+
+    /** Reverse-reachable set sampler with its own scratch, for one thread. */
+    ReverseSampler reverseSampler(CompactGraph g);
+
+    /** Live-edge worlds as pure functions of a world key, shared by all threads. */
+    WorldSampler worldSampler(CompactGraph g);
+
+    /**
+     * Model by name: IC, WC, LT, IC(p) for a uniform probability p, SIR
+     * (recovery 0.5) or SIR(r) for recovery probability r.
+     */
+    static PropagationModel of(String name) {
+        String base = name;
+        double parameter = Double.NaN;
+        int open = name.indexOf('(');
+        if (open > 0 && name.endsWith(")")) {
+            base = name.substring(0, open);
+            try {
+                parameter = Double.parseDouble(name.substring(open + 1, name.length() - 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("bad model parameter: " + name);
+            }
+        }
+        boolean plain = Double.isNaN(parameter);
+        switch (base) {
+            case "IC": return plain ? new WeightedCascade("IC") : new IndependentCascade(parameter);
+            case "WC": if (plain) return new WeightedCascade(); break;
+            case "LT": if (plain) return new LinearThreshold(); break;
+            case "SIR": return new SIRModel(plain ? 0.5 : parameter);
+            default: break;
+        }
+        throw new IllegalArgumentException("unknown propagation model: " + name);
+    }
+
+    /** Keeps one graph's edge parameters consistent as edges are added and removed. */
+    interface EdgeWeights {
+        /** v gained the in-edge now at in-slot slot; sets its parameter and rescales v's others if needed. */
+        void inEdgeAdded(int v, int slot, SplittableRandom random);
+
+        /** v lost an in-edge whose parameter was weight. */
+        void inEdgeRemoved(int v, double weight);
+    }
+
+    /**
+     * Per-thread forward kernel. run() adds the out-edges it scans to edges,
+     * which the caller collects for InfluenceMetrics.
+     */
+    abstract class Simulator {
+        protected long edges;
+
+        /** Runs numSim cascades from seeds[0..numSeeds) (dense ids); returns the summed number of active nodes. */
+        public abstract long run(int[] seeds, int numSeeds, int numSim, SplittableRandom rng);
+    }
+
+    /** Per-thread RR-set sampler; scratch is reset by bumping the epoch. */
+    abstract class ReverseSampler {
+        /** Nodes of the last sample. */
+        protected final int[] nodes;
+        protected final int[] visitMark;
+        private int epoch;
+
+        protected ReverseSampler(int n) {
+            nodes = new int[n];
+            visitMark = new int[n];
+        }
+
+        protected int nextEpoch() {
+            if (++epoch == 0) {
+                Arrays.fill(visitMark, 0);
+                epoch = 1;
+            }
+            return epoch;
+        }
+
+        /** Writes the nodes that reach root in one random world to nodes[0..size); returns size. */
+        public abstract int sample(int root, SplittableRandom rng);
+    }
+
+    /**
+     * Counter-based live-edge worlds: whether an edge is live depends only
+     * on (world, edge), so every caller sees the same worlds whatever order
+     * and thread it asks from. Used by estimateInfluenceBatch.
+     */
+    interface WorldSampler {
+        /** Whether out-edge slot e, leaving u, is live in world. */
+        boolean live(int u, int e, long world);
+
+        /** Uniform double in [0, 1) for (world, index); edges use their slot, nodes slots + node. */
+        static double uniform(long world, long index) {
+            return (InfluenceMaximization.mix64(world + InfluenceMaximization.GOLDEN_GAMMA * (index + 1)) >>> 11) * 0x1p-53;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+
+/**
+ * Bottom-k reachability sketches over sampled live-edge instances of an
+ * InfluenceMaximization graph, for fast approximate spread queries.
+ *
+ * Every node gets a uniform random rank per instance. The sketch of u in
+ * instance i holds the k smallest ranks among the nodes u reaches there,
+ * so |reach_i(S)| is estimated from the union of the seeds' sketches as
+ * (k - 1) / (k-th smallest rank), or exactly when the union is not full.
+ * Sketches are built per instance by pruned reverse searches in increasing
+ * rank order (Cohen et al.), so construction is near-linear. SKIM combines
+ * all instances into one sketch per node; keeping one sketch per instance
+ * lets the pruning stay exact, and instance estimates are simply averaged.
+ * Nodes of a strongly connected component share a sketch, so sketches are
+ * built and stored per component of the condensed worlds.
+ */
+public class ReachabilitySketchIndex {
+    private final CompactGraph graph;
+    private final int n, numInstances, k;
+    // Entries are positions in the instance's rank order; rank[i][pos] is the rank value.
+    // Sketches are per component: node u's sketch is that of component[i][u].
+    private final int[][] entries;
+    private final int[][] fill;
+    private final int[][] component;
+    private final double[][] rank;
+
+    private ReachabilitySketchIndex(CompactGraph graph, int numInstances, int k) {
+        this.graph = graph;
+        this.n = graph.numNodes;
+        this.numInstances = numInstances;
+        this.k = k;
+        entries = new int[numInstances][];
+        fill = new int[numInstances][];
+        component = new int[numInstances][];
+        rank = new double[numInstances][];
+    }
+
+    /**
+     * Samples numInstances live-edge worlds of im's propagation model and
+     * builds sketches of size k in each. The index does not change
+     * afterwards and can answer any number of queries and selections.
+     */
+    public static ReachabilitySketchIndex build(InfluenceMaximization im, int numInstances, int k, long seed) {
+        if (k < 2) throw new IllegalArgumentException("sketch size must be >= 2");
+        CompactGraph g = im.getGraph();
+        SplittableRandom rng = new SplittableRandom(seed);
+        LiveEdgeSnapshots worlds = new LiveEdgeSnapshots(g, im.getPropagationModel(), numInstances, rng.split());
+        ReachabilitySketchIndex index = new ReachabilitySketchIndex(g, numInstances, k);
+        for (int i = 0; i < numInstances; i++) index.buildInstance(i, worlds, rng);
+        return index;
+    }
+
+    private void buildInstance(int i, LiveEdgeSnapshots worlds, SplittableRandom rng) {
+        // Reverse CSR of the condensed world
+        int[] comp = worlds.component[i], off = worlds.offsets[i], tgt = worlds.targets[i];
+        int c = worlds.size[i].length;
+        int[] revOff = new int[c + 1];
+        for (int t : tgt) revOff[t + 1]++;
+        for (int v = 0; v < c; v++) revOff[v + 1] += revOff[v];
+        int[] revSrc = new int[tgt.length];
+        int[] pos = Arrays.copyOf(revOff, c);
+        for (int u = 0; u < c; u++) {
+            for (int e = off[u]; e < off[u + 1]; e++) revSrc[pos[tgt[e]]++] = u;
+        }
+
+        // Random rank order: a shuffled permutation with sorted uniform rank values
+        int[] order = new int[n];
+        for (int v = 0; v < n; v++) order[v] = v;
+        for (int v = n - 1; v > 0; v--) {
+            int j = rng.nextInt(v + 1);
+            int t = order[v]; order[v] = order[j]; order[j] = t;
+        }
+        double[] values = new double[n];
+        for (int v = 0; v < n; v++) values[v] = rng.nextDouble();
+        Arrays.sort(values);
+        rank[i] = values;
+
+        int[] sketch = new int[c * k];
+        int[] count = new int[c];
+        int[] mark = new int[c];
+        int[] queue = new int[c];
+        for (int p = 0; p < n; p++) {
+            int root = comp[order[p]];
+            if (count[root] == k) continue;
+            int stamp = p + 1;
+            mark[root] = stamp;
+            queue[0] = root;
+            int head = 0, tail = 1;
+            while (head < tail) {
+                int u = queue[head++];
+                sketch[u * k + count[u]++] = p;
+                for (int e = revOff[u]; e < revOff[u + 1]; e++) {
+                    int w = revSrc[e];
+                    // A full node and everything reaching it already hold k smaller ranks
+                    if (mark[w] != stamp && count[w] < k) {
+                        mark[w] = stamp;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+        }
+        entries[i] = sketch;
+        fill[i] = count;
+        component[i] = comp;
+    }
+
+    public int getNumInstances() { return numInstances; }
+    public int getSketchSize() { return k; }
+
+    /** Approximate expected spread of seeds, averaged over the sampled instances. */
+    public double estimateInfluence(Set<Integer> seeds) {
+        int[] dense = new int[seeds.size()];
+        int m = 0, unknown = 0;
+        for (int id : seeds) {
+            int v = graph.denseId(id);
+            if (v >= 0) dense[m++] = v;
+            else unknown++;
+        }
+        if (m == 0) return unknown;
+        int[] merged = new int[k];
+        int[] scratch = new int[k];
+        double total = 0;
+        for (int i = 0; i < numInstances; i++) {
+            int size = 0;
+            for (int j = 0; j < m; j++) {
+                int c = component[i][dense[j]];
+                size = mergeBottomK(merged, size, entries[i], c * k, fill[i][c], scratch);
+                int[] t = merged; merged = scratch; scratch = t;
+            }
+            total += estimate(i, merged, size);
+        }
+        return total / numInstances + unknown;
+    }
+
+    /**
+     * Merges the sorted bottom-k list a[0..aSize) with the sketch stored at
+     * b[bFrom .. bFrom+bSize) into out, dropping duplicates; returns the size.
+     */
+    private int mergeBottomK(int[] a, int aSize, int[] b, int bFrom, int bSize, int[] out) {
+        int i = 0, j = 0, size = 0;
+        while (size < k && (i < aSize || j < bSize)) {
+            int x;
+            if (j >= bSize || (i < aSize && a[i] < b[bFrom + j])) x = a[i++];
+            else if (i >= aSize || b[bFrom + j] < a[i]) x = b[bFrom + j++];
+            else { x = a[i++]; j++; }
+            out[size++] = x;
+        }
+        return size;
+    }
+
+    private double estimate(int instance, int[] sketch, int size) {
+        if (size < k) return size;
+        return (k - 1) / rank[instance][sketch[k - 1]];
+    }
+
+    /**
+     * Lazy greedy seed selection on the sketch estimates. Each instance keeps
+     * the merged sketch of the seeds chosen so far, so a marginal gain costs
+     * one k-way merge per instance.
+     */
+    public InfluenceMaximization.Result selectSeeds(int numSeeds, boolean verbose) {
+        long start = System.currentTimeMillis();
+        int[][] current = new int[numInstances][k];
+        int[] currentSize = new int[numInstances];
+        double[] currentEstimate = new double[numInstances];
+        int[] scratch = new int[k];
+        int evaluations = 0;
+
+        IndexedMaxHeap queue = new IndexedMaxHeap(n);
+        for (int u = 0; u < n; u++) {
+            queue.push(u, gain(u, current, currentSize, currentEstimate, scratch), 0);
+            evaluations++;
+        }
+
+        InfluenceMaximization.Result result = new InfluenceMaximization.Result();
+        double spread = 0;
+        int iteration = 0;
+        while (iteration < numSeeds && !queue.isEmpty()) {
+            int u = queue.peek();
+            if (queue.iteration[u] == iteration) {
+                queue.poll();
+                spread = 0;
+                for (int i = 0; i < numInstances; i++) {
+                    int c = component[i][u];
+                    currentSize[i] = mergeBottomK(current[i], currentSize[i], entries[i], c * k,
+                                                  fill[i][c], scratch);
+                    int[] t = current[i]; current[i] = scratch; scratch = t;
+                    currentEstimate[i] = estimate(i, current[i], currentSize[i]);
+                    spread += currentEstimate[i];
+                }
+                spread /= numInstances;
+                result.seeds.add(graph.nodeId(u));
+                InfluenceMaximization.IterationHistory h = new InfluenceMaximization.IterationHistory(
+                    iteration + 1, graph.nodeId(u), queue.gain[u], spread,
+                    (System.currentTimeMillis() - start) / 1000.0, evaluations);
+                result.history.add(h);
+                if (verbose) System.out.println(h);
+                iteration++;
+            } else {
+                queue.push(u, gain(u, current, currentSize, currentEstimate, scratch), iteration);
+                evaluations++;
+            }
+        }
+        result.totalTime = (System.currentTimeMillis() - start) / 1000.0;
+        result.totalEvaluations = evaluations;
+        return result;
+    }
+
+    private double gain(int u, int[][] current, int[] currentSize, double[] currentEstimate, int[] scratch) {
+        double total = 0;
+        for (int i = 0; i < numInstances; i++) {
+            int c = component[i][u];
+            int size = mergeBottomK(current[i], currentSize[i], entries[i], c * k, fill[i][c], scratch);
+            total += estimate(i, scratch, size) - currentEstimate[i];
+        }
+        return total / numInstances;
+    }
+}
@@ -0,0 +1,153 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+
+/**
+ * Discrete-time SIR: an infected node stays infectious for a geometric
+ * number of rounds T (recovering with probability gamma after each), and in
+ * every round tries each susceptible out-neighbour with p(u, v). Over its
+ * whole infectious period u therefore reaches v with 1 - (1 - p)^T, but the
+ * edges of one node share its T. Spread is the number of nodes ever
+ * infected. Edge parameters are weighted cascade (1 / in-degree); with
+ * gamma = 1 every period is one round and the model is Independent Cascade.
+ */
+public class SIRModel implements PropagationModel {
+    private final double recovery;
+    // log(1 - gamma), for drawing T by inversion
+    private final double logStay;
+
+    public SIRModel(double recovery) {
+        if (!(recovery > 0 && recovery <= 1)) throw new IllegalArgumentException("need 0 < recovery <= 1");
+        this.recovery = recovery;
+        this.logStay = Math.log1p(-recovery);
+    }
+
+    public double recovery() { return recovery; }
+
+    @Override
+    public String name() { return "SIR(" + recovery + ")"; }
+
+    @Override
+    public EdgeWeights assignWeights(CompactGraph g, SplittableRandom random) {
+        return WeightedCascade.assign(g);
+    }
+
+    @Override
+    public EdgeWeights keepWeights(CompactGraph g) {
+        return WeightedCascade.keep(g);
+    }
+
+    /** Infectious period for the uniform u in [0, 1): Geometric(gamma) on 1, 2, ... */
+    private int period(double u) {
+        if (recovery >= 1) return 1;
+        double t = 1 + Math.floor(Math.log1p(-u) / logStay);
+        return t >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) t;
+    }
+
+    /** Whether u, infectious for t rounds, reaches its neighbour through an edge with p, given uniform r. */
+    private static boolean transmits(double p, int t, double r) {
+        if (p >= 1) return true;
+        return t == 1 ? r < p : r < -Math.expm1(t * Math.log1p(-p));
+    }
+
+    @Override
+    public Simulator simulator(CompactGraph g) {
+        return new Simulator() {
+            final int[] visitMark = new int[g.numNodes], queue = new int[g.numNodes];
+            int epoch;
+
+            @Override
+            public long run(int[] seeds, int numSeeds, int numSim, SplittableRandom rng) {
+                long total = 0;
+                for (int i = 0; i < numSim; i++) total += epidemic(seeds, numSeeds, rng);
+                return total;
+            }
+
+            // Rounds do not change who is infected in the end, so a BFS that settles
+            // each node's period when it is infected gives the final size
+            private int epidemic(int[] seeds, int numSeeds, SplittableRandom rng) {
+                if (++epoch == 0) {
+                    Arrays.fill(visitMark, 0);
+                    epoch = 1;
+                }
+                int stamp = epoch, head = 0, tail = 0;
+                for (int i = 0; i < numSeeds; i++) {
+                    int s = seeds[i];
+                    if (visitMark[s] != stamp) {
+                        visitMark[s] = stamp;
+                        queue[tail++] = s;
+                    }
+                }
+                while (head < tail) {
+                    int u = queue[head++];
+                    int t = period(rng.nextDouble());
+                    edges += g.outEnds[u] - g.outOffsets[u];
+                    for (int e = g.outOffsets[u], end = g.outEnds[u]; e < end; e++) {
+                        int v = g.outTargets[e];
+                        if (visitMark[v] != stamp && transmits(g.outProbs[e], t, rng.nextDouble())) {
+                            visitMark[v] = stamp;
+                            queue[tail++] = v;
+                        }
+                    }
+                }
+                return tail;
+            }
+        };
+    }
+
+    @Override
+    public void sampleLiveEdges(CompactGraph g, boolean[] live, SplittableRandom rng) {
+        for (int u = 0; u < g.numNodes; u++) {
+            int t = period(rng.nextDouble());
+            for (int e = g.outOffsets[u]; e < g.outEnds[u]; e++) {
+                if (transmits(g.outProbs[e], t, rng.nextDouble())) live[e] = true;
+            }
+        }
+    }
+
+    /** Reverse BFS; a source's period is drawn once per sample, when one of its edges is first tried. */
+    @Override
+    public ReverseSampler reverseSampler(CompactGraph g) {
+        return new ReverseSampler(g.numNodes) {
+            final int[] periodMark = new int[g.numNodes], period = new int[g.numNodes];
+
+            @Override
+            public int sample(int root, SplittableRandom rng) {
+                int stamp = nextEpoch();
+                if (stamp == 1) Arrays.fill(periodMark, 0);
+                visitMark[root] = stamp;
+                nodes[0] = root;
+                int head = 0, tail = 1;
+                while (head < tail) {
+                    int v = nodes[head++];
+                    for (int i = g.inOffsets[v], end = g.inEnds[v]; i < end; i++) {
+                        int u = g.inSources[i];
+                        if (visitMark[u] == stamp) continue;
+                        if (periodMark[u] != stamp) {
+                            periodMark[u] = stamp;
+                            period[u] = period(rng.nextDouble());
+                        }
+                        if (transmits(g.inProbs[i], period[u], rng.nextDouble())) {
+                            visitMark[u] = stamp;
+                            nodes[tail++] = u;
+                        }
+                    }
+                }
+                return tail;
+            }
+        };
+    }
+
+    /** The edge draw uses the edge's slot and the period the node's index after the slots. */
+    @Override
+    public WorldSampler worldSampler(CompactGraph g) {
+        long nodeBase = g.outTargets.length;
+        return (u, e, world) -> transmits(g.outProbs[e], period(WorldSampler.uniform(world, nodeBase + u)),
+                                          WorldSampler.uniform(world, e));
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+}
@@ -0,0 +1,57 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+
+/**
+ * What a fixed-count celfIM run leaves for InfluenceMaximization.repairSeeds:
+ * its parameters and singleton spreads, and the edges changed since. The
+ * changed edges decide which cached spreads a repair may keep.
+ */
+final class SeedRepair {
+    final int k, numSim;
+    final long stream;
+    final double[] singleton;
+    private final List<int[]> changedEdges = new ArrayList<>();
+
+    SeedRepair(int k, int numSim, long stream, double[] singleton) {
+        this.k = k; this.numSim = numSim; this.stream = stream; this.singleton = singleton;
+    }
+
+    /** Records that the out-edges of u and the in-edge weights of v changed (dense ids). */
+    void edgeChanged(int u, int v) {
+        changedEdges.add(new int[]{u, v});
+    }
+
+    int changedEdges() {
+        return changedEdges.size();
+    }
+
+    /**
+     * Nodes of g with a path of probability >= threshold to an endpoint
+     * whose out-edges changed: the source of each changed edge and, since
+     * all of the target's in-edges are reweighted, its in-neighbours.
+     * Reverse Dijkstra on -log p, touching only the region it marks.
+     */
+    boolean[] affectedRegion(CompactGraph g, double threshold) {
+        int n = g.numNodes;
+        boolean[] affected = new boolean[n];
+        // Keyed by the best path probability found so far
+        IndexedMaxHeap Q = new IndexedMaxHeap(n);
+        for (int[] e : changedEdges) {
+            Q.push(e[0], 1, 0);
+            for (int i = g.inOffsets[e[1]]; i < g.inEnds[e[1]]; i++) Q.push(g.inSources[i], 1, 0);
+        }
+        while (!Q.isEmpty()) {
+            int x = Q.poll();
+            double p = Q.gain[x];
+            affected[x] = true;
+            for (int i = g.inOffsets[x]; i < g.inEnds[x]; i++) {
+                int w = g.inSources[i];
+                double q = p * g.inProbs[i];
+                if (affected[w] || q < threshold || (Q.contains(w) && q <= Q.gain[w])) continue;
+                Q.push(w, q, 0);
+            }
+        }
+        return affected;
+    }
+}
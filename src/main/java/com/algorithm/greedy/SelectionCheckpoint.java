@@ -0,0 +1,203 @@
+package com.algorithm.greedy;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * State of a greedyIM or celfIM(k, numSim) run between two seeds. Spreads
+ * are drawn from streams keyed by (stream, seed set), so the stream value
+ * replaces the generator state: a run resumed from here asks for the same
+ * estimates in the same order and ends exactly where the uninterrupted run
+ * would have.
+ *
+ * File layout (big-endian, DataOutputStream):
+ *   long magic, int version, int algorithm, UTF model, long graph
+ *   fingerprint, int n, int k, int numSim, long stream, int size,
+ *   int[] seeds(size), double spread, int iteration, int evaluations,
+ *   long simulations, double elapsed seconds, int history count, then per
+ *   entry int iteration, node, evaluations, long simulations, double gain,
+ *   spread, time; CELF adds double[] singleton(n) and the queue as int
+ *   count, then int node, int iteration, double gain per entry.
+ */
+final class SelectionCheckpoint {
+    static final long MAGIC = 0x54504B434D49L;   // "IMCKPT"
+    static final int VERSION = 1;
+    static final int GREEDY = 0, CELF = 1;
+
+    int algorithm;
+    String model;
+    long fingerprint;
+    int numNodes, k, numSim;
+    long stream;
+    int[] seeds;
+    double spread;
+    int iteration, evaluations;
+    long simulations;
+    double elapsed;
+    List<InfluenceMaximization.IterationHistory> history;
+    // CELF only
+    double[] singleton;
+    int[] queueNodes, queueIterations;
+    double[] queueGains;
+
+    /**
+     * Order-independent hash of the graph's node ids, edges and edge
+     * probabilities, so a checkpoint is only resumed on the graph and
+     * parameters it was taken on, even after a compacting round trip.
+     */
+    static long fingerprint(CompactGraph g) {
+        long h = g.numNodes * InfluenceMaximization.GOLDEN_GAMMA;
+        for (int u = 0; u < g.numNodes; u++) {
+            long id = g.nodeId(u);
+            h += InfluenceMaximization.mix64(id ^ 0x5DEECE66DL);
+            for (int e = g.outOffsets[u]; e < g.outEnds[u]; e++) {
+                long edge = id * InfluenceMaximization.GOLDEN_GAMMA + g.nodeId(g.outTargets[e]);
+                long p = g.outProbs == null ? 0 : Double.doubleToLongBits(g.outProbs[e]);
+                h += InfluenceMaximization.mix64(InfluenceMaximization.mix64(edge) + p);
+            }
+        }
+        return h;
+    }
+
+    /** Writes next to file and renames over it, so a crash mid-write keeps the previous checkpoint. */
+    void write(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(algorithm);
+            out.writeUTF(model);
+            out.writeLong(fingerprint);
+            out.writeInt(numNodes);
+            out.writeInt(k);
+            out.writeInt(numSim);
+            out.writeLong(stream);
+            out.writeInt(seeds.length);
+            for (int s : seeds) out.writeInt(s);
+            out.writeDouble(spread);
+            out.writeInt(iteration);
+            out.writeInt(evaluations);
+            out.writeLong(simulations);
+            out.writeDouble(elapsed);
+            out.writeInt(history.size());
+            for (InfluenceMaximization.IterationHistory h : history) {
+                out.writeInt(h.iteration);
+                out.writeInt(h.node);
+                out.writeInt(h.evaluations);
+                out.writeLong(h.simulations);
+                out.writeDouble(h.marginalGain);
+                out.writeDouble(h.totalSpread);
+                out.writeDouble(h.time);
+            }
+            if (algorithm == CELF) {
+                for (double s : singleton) out.writeDouble(s);
+                out.writeInt(queueNodes.length);
+                for (int i = 0; i < queueNodes.length; i++) {
+                    out.writeInt(queueNodes[i]);
+                    out.writeInt(queueIterations[i]);
+                    out.writeDouble(queueGains[i]);
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static SelectionCheckpoint read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readLong() != MAGIC) throw new IOException(file + ": not a selection checkpoint");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException(file + ": unsupported version " + version);
+            SelectionCheckpoint c = new SelectionCheckpoint();
+            c.algorithm = in.readInt();
+            if (c.algorithm != GREEDY && c.algorithm != CELF) {
+                throw new IOException(file + ": unknown algorithm " + c.algorithm);
+            }
+            c.model = in.readUTF();
+            c.fingerprint = in.readLong();
+            c.numNodes = in.readInt();
+            c.k = in.readInt();
+            c.numSim = in.readInt();
+            c.stream = in.readLong();
+            c.seeds = new int[in.readInt()];
+            for (int i = 0; i < c.seeds.length; i++) c.seeds[i] = in.readInt();
+            c.spread = in.readDouble();
+            c.iteration = in.readInt();
+            c.evaluations = in.readInt();
+            c.simulations = in.readLong();
+            c.elapsed = in.readDouble();
+            int count = in.readInt();
+            c.history = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int iter = in.readInt(), node = in.readInt(), evals = in.readInt();
+                long sims = in.readLong();
+                double gain = in.readDouble(), total = in.readDouble(), time = in.readDouble();
+                InfluenceMaximization.IterationHistory h =
+                    new InfluenceMaximization.IterationHistory(iter, node, gain, total, time, evals);
+                h.simulations = sims;
+                c.history.add(h);
+            }
+            if (c.algorithm == CELF) {
+                c.singleton = new double[c.numNodes];
+                for (int v = 0; v < c.numNodes; v++) c.singleton[v] = in.readDouble();
+                int queued = in.readInt();
+                c.queueNodes = new int[queued];
+                c.queueIterations = new int[queued];
+                c.queueGains = new double[queued];
+                for (int i = 0; i < queued; i++) {
+                    c.queueNodes[i] = in.readInt();
+                    c.queueIterations[i] = in.readInt();
+                    c.queueGains[i] = in.readDouble();
+                }
+            }
+            return c;
+        }
+    }
+
+    /**
+     * Background writer for one run. submit() only hands the snapshot over;
+     * if a write is still in progress the newer snapshot replaces any that
+     * is waiting, so the selection loop never blocks on the disk.
+     */
+    static final class Writer {
+        private final Path file;
+        private final AtomicReference<SelectionCheckpoint> pending = new AtomicReference<>();
+        private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "im-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        private volatile IOException failure;
+
+        Writer(Path file) {
+            this.file = file;
+        }
+
+        void submit(SelectionCheckpoint c) {
+            if (pending.getAndSet(c) == null) executor.execute(this::drain);
+        }
+
+        private void drain() {
+            SelectionCheckpoint c = pending.getAndSet(null);
+            if (c == null) return;
+            try {
+                c.write(file);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        /** Waits for the last submitted checkpoint to be written; returns the last write error, if any. */
+        IOException close() {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Bounded LRU cache of spread estimates keyed by seed set. A seed set is
+ * fingerprinted by its sorted dense ids plus the simulation count, so
+ * {a, b} and {b, a} share an entry. Estimates drawn from keyed random
+ * streams also carry the stream, so they never mix with other runs.
+ */
+class SpreadCache {
+    private final int capacity;
+    private final LinkedHashMap<Key, Double> entries;
+    private long hits, misses;
+    // Cumulative counts for the owner's metrics, if any
+    private final InfluenceMetrics metrics;
+
+    SpreadCache(int capacity) {
+        this(capacity, null);
+    }
+
+    SpreadCache(int capacity, InfluenceMetrics metrics) {
+        this.capacity = capacity;
+        this.metrics = metrics;
+        this.entries = new LinkedHashMap<Key, Double>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Double> eldest) {
+                return size() > SpreadCache.this.capacity;
+            }
+        };
+    }
+
+    static final class Key {
+        final int[] seeds;
+        final int numSim, hash;
+        final long stream;
+
+        Key(int[] seeds, int numSeeds, int numSim) {
+            this(seeds, numSeeds, numSim, 0);
+        }
+
+        Key(int[] seeds, int numSeeds, int numSim, long stream) {
+            this.seeds = Arrays.copyOf(seeds, numSeeds);
+            Arrays.sort(this.seeds);
+            this.numSim = numSim;
+            this.stream = stream;
+            this.hash = 31 * (31 * Arrays.hashCode(this.seeds) + numSim) + Long.hashCode(stream);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return hash == k.hash && numSim == k.numSim && stream == k.stream
+                && Arrays.equals(seeds, k.seeds);
+        }
+    }
+
+    /** Cached estimate for the key, or null (counted as a miss). */
+    Double get(Key key) {
+        Double value = capacity == 0 ? null : entries.get(key);
+        if (value == null) {
+            misses++;
+            if (metrics != null) metrics.cacheMisses.increment();
+        } else {
+            hits++;
+            if (metrics != null) metrics.cacheHits.increment();
+        }
+        return value;
+    }
+
+    void put(Key key, double spread) {
+        if (capacity > 0) entries.put(key, spread);
+    }
+
+    /** Drops the entries matching filter, e.g. those a graph update invalidated. */
+    void removeIf(Predicate<Key> filter) {
+        entries.keySet().removeIf(filter);
+    }
+
+    void clear() {
+        entries.clear();
+        resetCounters();
+    }
+
+    void resetCounters() {
+        hits = 0;
+        misses = 0;
+    }
+
+    long hits() { return hits; }
+    long misses() { return misses; }
+    int size() { return entries.size(); }
+}
@@ -0,0 +1,145 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+
+/**
+ * Triggering model (Kempe et al. 2003): every node v independently draws a
+ * triggering set of in-neighbours and becomes active once a member of its
+ * set is. A subclass only says how the set is drawn; the kernels here work
+ * for any such rule, drawing v's set the first time a cascade, world or RR
+ * sample needs it. Edge parameters default to weighted cascade (1 /
+ * in-degree). The cascade models and LinearThreshold are triggering models
+ * with faster kernels of their own.
+ */
+public abstract class TriggeringModel implements PropagationModel {
+
+    /** Draws v's triggering set: writes its in-slots to into (length >= in-degree); returns how many. */
+    protected abstract int sampleTriggeringSet(CompactGraph g, int v, int[] into, SplittableRandom rng);
+
+    @Override
+    public EdgeWeights assignWeights(CompactGraph g, SplittableRandom random) {
+        return WeightedCascade.assign(g);
+    }
+
+    @Override
+    public EdgeWeights keepWeights(CompactGraph g) {
+        return WeightedCascade.keep(g);
+    }
+
+    @Override
+    public Simulator simulator(CompactGraph g) {
+        return new Simulator() {
+            final int[] visitMark = new int[g.numNodes], drawnMark = new int[g.numNodes], queue = new int[g.numNodes];
+            int[] liveMark = new int[0], into = new int[16];
+            int epoch;
+
+            @Override
+            public long run(int[] seeds, int numSeeds, int numSim, SplittableRandom rng) {
+                if (liveMark.length < g.outTargets.length) liveMark = new int[g.outTargets.length];
+                long total = 0;
+                for (int i = 0; i < numSim; i++) total += cascade(seeds, numSeeds, rng);
+                return total;
+            }
+
+            // v's set is drawn when an active in-neighbour first looks at v, and its
+            // in-edges are marked live by out-slot for the rest of the cascade
+            private int cascade(int[] seeds, int numSeeds, SplittableRandom rng) {
+                if (++epoch == 0) {
+                    Arrays.fill(visitMark, 0);
+                    Arrays.fill(drawnMark, 0);
+                    Arrays.fill(liveMark, 0);
+                    epoch = 1;
+                }
+                int stamp = epoch, head = 0, tail = 0;
+                for (int i = 0; i < numSeeds; i++) {
+                    int s = seeds[i];
+                    if (visitMark[s] != stamp) {
+                        visitMark[s] = stamp;
+                        queue[tail++] = s;
+                    }
+                }
+                while (head < tail) {
+                    int u = queue[head++];
+                    edges += g.outEnds[u] - g.outOffsets[u];
+                    for (int e = g.outOffsets[u], end = g.outEnds[u]; e < end; e++) {
+                        int v = g.outTargets[e];
+                        if (visitMark[v] == stamp) continue;
+                        if (drawnMark[v] != stamp) {
+                            drawnMark[v] = stamp;
+                            if (into.length < g.inDegree(v)) into = new int[g.inDegree(v)];
+                            int size = sampleTriggeringSet(g, v, into, rng);
+                            for (int j = 0; j < size; j++) liveMark[g.inToOut[into[j]]] = stamp;
+                        }
+                        if (liveMark[e] == stamp) {
+                            visitMark[v] = stamp;
+                            queue[tail++] = v;
+                        }
+                    }
+                }
+                return tail;
+            }
+        };
+    }
+
+    @Override
+    public void sampleLiveEdges(CompactGraph g, boolean[] live, SplittableRandom rng) {
+        int[] into = new int[16];
+        for (int v = 0; v < g.numNodes; v++) {
+            if (into.length < g.inDegree(v)) into = new int[g.inDegree(v)];
+            int size = sampleTriggeringSet(g, v, into, rng);
+            for (int j = 0; j < size; j++) live[g.inToOut[into[j]]] = true;
+        }
+    }
+
+    /** Reverse BFS: each node reached draws its set once, and its members join the sample. */
+    @Override
+    public ReverseSampler reverseSampler(CompactGraph g) {
+        return new ReverseSampler(g.numNodes) {
+            int[] into = new int[16];
+
+            @Override
+            public int sample(int root, SplittableRandom rng) {
+                int stamp = nextEpoch();
+                visitMark[root] = stamp;
+                nodes[0] = root;
+                int head = 0, tail = 1;
+                while (head < tail) {
+                    int v = nodes[head++];
+                    if (into.length < g.inDegree(v)) into = new int[g.inDegree(v)];
+                    int size = sampleTriggeringSet(g, v, into, rng);
+                    for (int j = 0; j < size; j++) {
+                        int u = g.inSources[into[j]];
+                        if (visitMark[u] != stamp) {
+                            visitMark[u] = stamp;
+                            nodes[tail++] = u;
+                        }
+                    }
+                }
+                return tail;
+            }
+        };
+    }
+
+    /**
+     * v's set in a world is drawn from a generator seeded with (world, v).
+     * This allocates per query, so it is the general fallback; the built-in
+     * models hash single edges or nodes instead.
+     */
+    @Override
+    public WorldSampler worldSampler(CompactGraph g) {
+        long nodeBase = g.outTargets.length;
+        return (u, e, world) -> {
+            int v = g.outTargets[e];
+            int[] into = new int[g.inDegree(v)];
+            long seed = InfluenceMaximization.mix64(world + InfluenceMaximization.GOLDEN_GAMMA * (nodeBase + v + 1));
+            int size = sampleTriggeringSet(g, v, into, new SplittableRandom(seed));
+            for (int j = 0; j < size; j++) if (g.inToOut[into[j]] == e) return true;
+            return false;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return name();
+    }
+}
@@ -0,0 +1,60 @@
+package com.algorithm.greedy;
+
+import java.util.*;
+
+/**
+ * Weighted cascade: Independent Cascade with p(u, v) = 1 / in-degree(v),
+ * so every node expects one activation attempt to succeed. This is what the
+ * project has always called "IC"; PropagationModel.of("IC") returns it
+ * under that name. Updates re-derive the in-edge weights of the node whose
+ * in-degree changed. There is no single edge probability, so unlike
+ * IndependentCascade it has no probability() accessor.
+ */
+public class WeightedCascade extends CascadeModel {
+    private final String name;
+
+    public WeightedCascade() {
+        this("WC");
+    }
+
+    WeightedCascade(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String name() { return name; }
+
+    @Override
+    public EdgeWeights assignWeights(CompactGraph g, SplittableRandom random) {
+        return assign(g);
+    }
+
+    @Override
+    public EdgeWeights keepWeights(CompactGraph g) {
+        return keep(g);
+    }
+
+    static EdgeWeights assign(CompactGraph g) {
+        for (int v = 0; v < g.numNodes; v++) reweight(g, v);
+        return keep(g);
+    }
+
+    static EdgeWeights keep(CompactGraph g) {
+        return new EdgeWeights() {
+            @Override
+            public void inEdgeAdded(int v, int slot, SplittableRandom random) {
+                reweight(g, v);
+            }
+
+            @Override
+            public void inEdgeRemoved(int v, double weight) {
+                reweight(g, v);
+            }
+        };
+    }
+
+    static void reweight(CompactGraph g, int v) {
+        int inDeg = g.inDegree(v);
+        for (int i = g.inOffsets[v]; i < g.inEnds[v]; i++) g.setInProbability(i, 1.0 / inDeg);
+    }
+}
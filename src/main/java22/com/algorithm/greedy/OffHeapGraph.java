@@ -0,0 +1,269 @@
+package com.algorithm.greedy;
+
+import java.io.IOException;
+import java.lang.foreign.*;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CSR graph in MemorySegments, either mapped straight from a GraphIO
+ * binary file or copied from a CompactGraph into a shared Arena. The arrays
+ * keep GraphIO's little-endian layout (nodeIds, outOffsets, outTargets,
+ * inOffsets, inSources, inToOut, outProbs), so a mapped file is read in
+ * place and pages come and go with the OS cache instead of the GC. The id
+ * index and the per-thread cascade scratch are off-heap too: nothing on
+ * the heap grows with the graph.
+ */
+final class OffHeapGraph implements GraphBackend {
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt SCRATCH_INT = ValueLayout.JAVA_INT;
+    private static final ValueLayout.OfDouble SCRATCH_DOUBLE = ValueLayout.JAVA_DOUBLE;
+
+    private final Arena arena;
+    private final int n, m;
+    private final MemorySegment nodeIds, outOffsets, outTargets, inOffsets, inSources, inToOut;
+    private MemorySegment outProbs;
+    // Open addressing over original ids: dense id + 1 per slot, 0 when empty
+    private final MemorySegment index;
+    private final int indexMask;
+    private final ThreadLocal<Scratch> scratch;
+
+    private OffHeapGraph(Arena arena, int n, int m, MemorySegment[] arrays, MemorySegment outProbs) {
+        this.arena = arena;
+        this.n = n;
+        this.m = m;
+        nodeIds = arrays[0];
+        outOffsets = arrays[1];
+        outTargets = arrays[2];
+        inOffsets = arrays[3];
+        inSources = arrays[4];
+        inToOut = arrays[5];
+        this.outProbs = outProbs;
+
+        int capacity = Integer.highestOneBit(Math.max(1, n)) << 2;
+        indexMask = capacity - 1;
+        index = arena.allocate(4L * capacity, 4).fill((byte) 0);
+        for (int v = 0; v < n; v++) {
+            int slot = slot(nodeIds.getAtIndex(INT, v));
+            while (index.getAtIndex(SCRATCH_INT, slot) != 0) slot = (slot + 1) & indexMask;
+            index.setAtIndex(SCRATCH_INT, slot, v + 1);
+        }
+        scratch = ThreadLocal.withInitial(() -> new Scratch(n));
+    }
+
+    /** Maps a file written by GraphIO.writeBinary; probabilities stored in it are used in place. */
+    static OffHeapGraph map(Path file) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MemorySegment data = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size(), arena);
+            if (data.byteSize() < GraphIO.HEADER_BYTES || data.get(LONG, 0) != GraphIO.MAGIC) {
+                throw new IOException(file + ": not a binary CSR graph");
+            }
+            int version = data.get(INT, 8);
+            if (version != GraphIO.VERSION) throw new IOException(file + ": unsupported version " + version);
+            int flags = data.get(INT, 12), n = data.get(INT, 16), m = data.get(INT, 20);
+            boolean probs = (flags & GraphIO.FLAG_PROBABILITIES) != 0;
+            GraphIO.checkSize(file, flags, n, m, data.byteSize());
+
+            long[] lengths = {n, n + 1L, m, n + 1L, m, m};
+            MemorySegment[] arrays = new MemorySegment[lengths.length];
+            long pos = GraphIO.HEADER_BYTES;
+            for (int i = 0; i < lengths.length; i++) {
+                arrays[i] = data.asSlice(pos, 4 * lengths[i]);
+                pos += 4 * lengths[i];
+            }
+            return new OffHeapGraph(arena, n, m, arrays,
+                probs ? data.asSlice(GraphIO.probabilityOffset(n, m), 8L * m) : null);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /** Copies a heap graph off the heap, e.g. to drop the CompactGraph afterwards. */
+    static OffHeapGraph copyOf(CompactGraph graph) {
+        CompactGraph g = graph.compacted();
+        Arena arena = Arena.ofShared();
+        int[][] source = {g.nodeIds, g.outOffsets, g.outTargets, g.inOffsets, g.inSources, g.inToOut};
+        MemorySegment[] arrays = new MemorySegment[source.length];
+        for (int i = 0; i < source.length; i++) {
+            arrays[i] = arena.allocate(4L * source[i].length, 4);
+            MemorySegment.copy(source[i], 0, arrays[i], INT, 0, source[i].length);
+        }
+        MemorySegment probs = null;
+        if (g.hasProbabilities()) {
+            probs = arena.allocate(8L * g.numEdges, 8);
+            MemorySegment.copy(g.outProbs, 0, probs, DOUBLE, 0, g.numEdges);
+        }
+        return new OffHeapGraph(arena, g.numNodes, g.numEdges, arrays, probs);
+    }
+
+    private int slot(int id) {
+        return (int) InfluenceMaximization.mix64(id) & indexMask;
+    }
+
+    @Override public int numNodes() { return n; }
+    @Override public long numEdges() { return m; }
+    @Override public int nodeId(int v) { return nodeIds.getAtIndex(INT, v); }
+    @Override public boolean hasProbabilities() { return outProbs != null; }
+
+    @Override
+    public int denseId(int id) {
+        for (int slot = slot(id); ; slot = (slot + 1) & indexMask) {
+            int v = index.getAtIndex(SCRATCH_INT, slot) - 1;
+            if (v < 0 || nodeIds.getAtIndex(INT, v) == id) return v;
+        }
+    }
+
+    /** Writes a fresh segment from the arena, so a mapped file is never modified. */
+    @Override
+    public void assignProbabilities(PropagationModel model, SplittableRandom random) {
+        kernel(model);
+        boolean weighted = model instanceof WeightedCascade, lt = model instanceof LinearThreshold;
+        double p = model instanceof IndependentCascade ? ((IndependentCascade) model).probability() : 0;
+        MemorySegment probs = arena.allocate(8L * m, 8).fill((byte) 0);
+        for (int v = 0; v < n; v++) {
+            int from = inOffsets.getAtIndex(INT, v), to = inOffsets.getAtIndex(INT, v + 1);
+            if (weighted) {
+                for (int i = from; i < to; i++) probs.setAtIndex(DOUBLE, inToOut.getAtIndex(INT, i), 1.0 / (to - from));
+            } else if (!lt) {
+                for (int i = from; i < to; i++) probs.setAtIndex(DOUBLE, inToOut.getAtIndex(INT, i), p);
+            } else if (to > from) {
+                double sum = 0;
+                for (int i = from; i < to; i++) {
+                    double w = random.nextDouble();
+                    probs.setAtIndex(DOUBLE, inToOut.getAtIndex(INT, i), w);
+                    sum += w;
+                }
+                for (int i = from; i < to; i++) {
+                    long e = inToOut.getAtIndex(INT, i);
+                    probs.setAtIndex(DOUBLE, e, probs.getAtIndex(DOUBLE, e) / (sum * 1.1));
+                }
+            }
+        }
+        outProbs = probs;
+    }
+
+    @Override
+    public long simulate(PropagationModel model, int[] seeds, int numSeeds, int numSim, SplittableRandom rng, LongAdder edges) {
+        Scratch s = scratch.get();
+        boolean ic = kernel(model);
+        long total = 0;
+        for (int i = 0; i < numSim; i++) total += ic ? simulateIC(seeds, numSeeds, s, rng) : simulateLT(seeds, numSeeds, s, rng);
+        edges.add(s.edges);
+        s.edges = 0;
+        return total;
+    }
+
+    /**
+     * Whether model runs on the cascade kernel (Independent Cascade with any
+     * probabilities) rather than the threshold one. Other models have no
+     * kernel over the segments yet.
+     */
+    private static boolean kernel(PropagationModel model) {
+        if (model instanceof CascadeModel) return true;
+        if (model instanceof LinearThreshold) return false;
+        throw new UnsupportedOperationException("no off-heap kernel for model " + model.name());
+    }
+
+    /** CascadeModel's scalar kernel over the segments. */
+    private int simulateIC(int[] seeds, int numSeeds, Scratch s, SplittableRandom rng) {
+        MemorySegment visitMark = s.visitMark, queue = s.queue;
+        int stamp = s.nextEpoch();
+        int head = 0, tail = 0;
+        for (int i = 0; i < numSeeds; i++) {
+            int v = seeds[i];
+            if (visitMark.getAtIndex(SCRATCH_INT, v) != stamp) {
+                visitMark.setAtIndex(SCRATCH_INT, v, stamp);
+                queue.setAtIndex(SCRATCH_INT, tail++, v);
+            }
+        }
+        while (head < tail) {
+            int u = queue.getAtIndex(SCRATCH_INT, head++);
+            int from = outOffsets.getAtIndex(INT, u), to = outOffsets.getAtIndex(INT, u + 1);
+            s.edges += to - from;
+            for (int e = from; e < to; e++) {
+                int v = outTargets.getAtIndex(INT, e);
+                if (visitMark.getAtIndex(SCRATCH_INT, v) != stamp && rng.nextDouble() < outProbs.getAtIndex(DOUBLE, e)) {
+                    visitMark.setAtIndex(SCRATCH_INT, v, stamp);
+                    queue.setAtIndex(SCRATCH_INT, tail++, v);
+                }
+            }
+        }
+        return tail;
+    }
+
+    /** LinearThreshold's kernel over the segments: thresholds drawn on first touch. */
+    private int simulateLT(int[] seeds, int numSeeds, Scratch s, SplittableRandom rng) {
+        MemorySegment touched = s.visitMark, active = s.activeMark, queue = s.queue;
+        MemorySegment thresholds = s.thresholds, weight = s.weight;
+        int stamp = s.nextEpoch();
+        int head = 0, tail = 0;
+        for (int i = 0; i < numSeeds; i++) {
+            int v = seeds[i];
+            if (active.getAtIndex(SCRATCH_INT, v) != stamp) {
+                active.setAtIndex(SCRATCH_INT, v, stamp);
+                queue.setAtIndex(SCRATCH_INT, tail++, v);
+            }
+        }
+        while (head < tail) {
+            int u = queue.getAtIndex(SCRATCH_INT, head++);
+            int from = outOffsets.getAtIndex(INT, u), to = outOffsets.getAtIndex(INT, u + 1);
+            s.edges += to - from;
+            for (int e = from; e < to; e++) {
+                int v = outTargets.getAtIndex(INT, e);
+                if (active.getAtIndex(SCRATCH_INT, v) == stamp) continue;
+                if (touched.getAtIndex(SCRATCH_INT, v) != stamp) {
+                    touched.setAtIndex(SCRATCH_INT, v, stamp);
+                    thresholds.setAtIndex(SCRATCH_DOUBLE, v, rng.nextDouble());
+                    weight.setAtIndex(SCRATCH_DOUBLE, v, 0.0);
+                }
+                double w = weight.getAtIndex(SCRATCH_DOUBLE, v) + outProbs.getAtIndex(DOUBLE, e);
+                weight.setAtIndex(SCRATCH_DOUBLE, v, w);
+                if (w >= thresholds.getAtIndex(SCRATCH_DOUBLE, v)) {
+                    active.setAtIndex(SCRATCH_INT, v, stamp);
+                    queue.setAtIndex(SCRATCH_INT, tail++, v);
+                }
+            }
+        }
+        return tail;
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Per-thread cascade scratch, reset by bumping the epoch. Allocated from
+     * an automatic arena, so it is freed once its thread and graph are gone.
+     */
+    private static final class Scratch {
+        final MemorySegment visitMark, activeMark, queue, thresholds, weight;
+        long edges;
+        int epoch;
+
+        Scratch(int n) {
+            Arena auto = Arena.ofAuto();
+            visitMark = auto.allocate(4L * n, 4).fill((byte) 0);
+            activeMark = auto.allocate(4L * n, 4).fill((byte) 0);
+            queue = auto.allocate(4L * n, 4);
+            thresholds = auto.allocate(8L * n, 8);
+            weight = auto.allocate(8L * n, 8);
+        }
+
+        int nextEpoch() {
+            if (++epoch == 0) {
+                visitMark.fill((byte) 0);
+                activeMark.fill((byte) 0);
+                epoch = 1;
+            }
+            return epoch;
+        }
+    }
+}
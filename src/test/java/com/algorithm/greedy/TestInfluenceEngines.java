@@ -0,0 +1,1025 @@
+package com.algorithm.greedy;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.net.URI;
+import java.net.http.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Unit tests for the Influence Maximization graph backend and selection engines
+ */
+public class TestInfluenceEngines {
+
+    private static final double EPSILON = 1e-9;
+
+    /**
+     * Test 1: CSR layout keeps both directions consistent
+     */
+    @Test
+    public void testCompactGraphLayout() {
+        CompactGraph.Builder b = new CompactGraph.Builder();
+        b.addEdge(10, 20);
+        b.addEdge(10, 30);
+        b.addEdge(30, 20);
+        CompactGraph g = b.build();
+
+        assertEquals(3, g.numNodes());
+        assertEquals(3, g.numEdges());
+        int u = g.denseId(10), v = g.denseId(20), w = g.denseId(30);
+        assertEquals(-1, g.denseId(99));
+        assertEquals(2, g.outDegree(u));
+        assertEquals(2, g.inDegree(v));
+        assertEquals(0, g.inDegree(u));
+
+        for (int x = 0; x < g.numNodes(); x++) {
+            for (int i = g.inOffsets[x]; i < g.inOffsets[x + 1]; i++) {
+                int e = g.inToOut[i];
+                assertEquals(x, g.outTargets[e]);
+                assertTrue(e >= g.outOffsets[g.inSources[i]] && e < g.outOffsets[g.inSources[i] + 1]);
+            }
+        }
+        assertEquals(30, g.nodeId(w));
+    }
+
+    /**
+     * Test 2: IC weights are 1/in-degree on both edge arrays
+     */
+    @Test
+    public void testWeightedCascadeWeights() {
+        InfluenceMaximization im = new GraphGenerator(7).generateBarabasiAlbert(60, 2, "IC");
+        CompactGraph g = im.getGraph();
+        for (int v = 0; v < g.numNodes(); v++) {
+            double sum = 0;
+            for (int i = g.inOffsets[v]; i < g.inOffsets[v + 1]; i++) {
+                sum += g.inProbs[i];
+                assertEquals(g.inProbs[i], g.outProbs[g.inToOut[i]], EPSILON);
+            }
+            if (g.inDegree(v) > 0) assertEquals(1.0, sum, 1e-6);
+        }
+    }
+
+    /**
+     * Test 3: A certain chain activates every downstream node
+     */
+    @Test
+    public void testDeterministicChain() {
+        InfluenceMaximization im = new InfluenceMaximization("IC", 1);
+        for (int i = 0; i < 5; i++) im.addEdge(i, i + 1);
+        im.initializePropagationParameters();
+
+        assertEquals(6.0, im.estimateInfluence(Set.of(0), 50), EPSILON);
+        assertEquals(3.0, im.estimateInfluence(Set.of(3), 50), EPSILON);
+        assertEquals(0.0, im.estimateInfluence(new HashSet<>(), 50), EPSILON);
+    }
+
+    /**
+     * Test 4: Edges added after initialization are picked up on re-initialization
+     */
+    @Test
+    public void testAddEdgeAfterInitialization() {
+        InfluenceMaximization im = new InfluenceMaximization("IC", 1);
+        im.addEdge(0, 1);
+        im.initializePropagationParameters();
+        assertEquals(2.0, im.estimateInfluence(Set.of(0), 10), EPSILON);
+
+        im.addEdge(1, 2);
+        im.initializePropagationParameters();
+        assertEquals(3, im.getNumNodes());
+        assertEquals(3.0, im.estimateInfluence(Set.of(0), 10), EPSILON);
+        assertEquals(Set.of(0, 1, 2), im.getNodes());
+    }
+
+    /**
+     * Test 5: Parallel estimation is reproducible for a fixed seed and thread count
+     */
+    @Test
+    public void testParallelEstimateReproducible() {
+        double[] spreads = new double[2];
+        for (int run = 0; run < 2; run++) {
+            InfluenceMaximization im = new GraphGenerator(3).generateBarabasiAlbert(150, 3, "IC");
+            im.setParallelism(4);
+            spreads[run] = im.estimateInfluence(Set.of(0, 5, 9), 1000);
+        }
+        assertEquals(spreads[0], spreads[1], 0.0);
+
+        InfluenceMaximization serial = new GraphGenerator(3).generateBarabasiAlbert(150, 3, "IC");
+        double s = serial.estimateInfluence(Set.of(0, 5, 9), 1000);
+        assertEquals(s, spreads[0], 0.15 * s);
+
+        InfluenceMaximization im = new GraphGenerator(3).generateBarabasiAlbert(150, 3, "LT");
+        im.setParallelism(3);
+        InfluenceMaximization.Result r = im.celfIM(3, 200, false);
+        assertEquals(3, r.threads);
+        assertEquals(3, r.seeds.size());
+
+        // Replacing the instance's own pool leaves a caller's pool running
+        java.util.concurrent.ForkJoinPool shared = new java.util.concurrent.ForkJoinPool(2);
+        im.setParallelism(2, shared);
+        im.setParallelism(1);
+        assertFalse(shared.isShutdown());
+        assertEquals(1, im.getParallelism());
+        shared.shutdown();
+    }
+
+    /**
+     * Test 6: IMM finds seeds whose simulated spread matches CELF
+     */
+    @Test
+    public void testIMMAgainstCELF() {
+        for (String model : new String[]{"IC", "LT"}) {
+            InfluenceMaximization im = new GraphGenerator(11).generateBarabasiAlbert(200, 3, model);
+            InfluenceMaximization.Result imm = im.immIM(5, 0.2, 0.01, false);
+            InfluenceMaximization.Result celf = im.celfIM(5, 300, false);
+
+            assertEquals(5, imm.seeds.size());
+            assertEquals(5, imm.history.size());
+            double sImm = im.estimateInfluence(imm.seeds, 2000);
+            double sCelf = im.estimateInfluence(celf.seeds, 2000);
+            assertTrue(sImm >= 0.9 * sCelf, model + ": IMM " + sImm + " vs CELF " + sCelf);
+
+            double predicted = imm.history.get(4).totalSpread;
+            assertEquals(sImm, predicted, 0.2 * sImm);
+        }
+
+        // A one-node graph has log n = 0 and no RR sampling to do
+        CompactGraph.Builder b = new CompactGraph.Builder();
+        b.addNode(7);
+        InfluenceMaximization lone = new InfluenceMaximization("IC", 1, b.build());
+        assertEquals(Set.of(7), lone.immIM(3, 0.2, 0.5, false).seeds);
+        assertTrue(lone.immIM(0, 0.2, 0.5, false).seeds.isEmpty());
+    }
+
+    /**
+     * Test 7: CELF++ reuses look-ahead gains and keeps CELF quality
+     */
+    @Test
+    public void testCELFPlusPlus() {
+        InfluenceMaximization im = new GraphGenerator(5).generateBarabasiAlbert(150, 3, "IC");
+        InfluenceMaximization.Result pp = im.celfPlusPlusIM(8, 300, false);
+        InfluenceMaximization.Result celf = im.celfIM(8, 300, false);
+
+        assertEquals(8, pp.seeds.size());
+        int saved = pp.history.get(pp.history.size() - 1).evaluationsSaved;
+        assertTrue(saved > 0, "look-ahead should skip some re-evaluations");
+        for (int i = 1; i < pp.history.size(); i++) {
+            assertTrue(pp.history.get(i).evaluationsSaved >= pp.history.get(i - 1).evaluationsSaved);
+        }
+        double sPP = im.estimateInfluence(pp.seeds, 2000);
+        double sCelf = im.estimateInfluence(celf.seeds, 2000);
+        assertTrue(sPP >= 0.9 * sCelf, "CELF++ " + sPP + " vs CELF " + sCelf);
+
+        // A second call draws a new stream instead of replaying the first from the cache
+        InfluenceMaximization.Result again = im.celfPlusPlusIM(8, 300, false);
+        assertTrue(again.totalEvaluations >= im.getNumNodes(), again.totalEvaluations + " evaluations");
+        assertTrue(again.history.get(again.history.size() - 1).simulations > 0);
+    }
+
+    /**
+     * Test 8: StaticGreedy gains add up to the snapshot spread of the seeds
+     */
+    @Test
+    public void testStaticGreedySnapshots() {
+        for (String model : new String[]{"IC", "LT"}) {
+            InfluenceMaximization im = new GraphGenerator(9).generateBarabasiAlbert(150, 3, model);
+            InfluenceMaximization.Result r = im.staticGreedyIM(6, 200, false);
+            assertEquals(6, r.seeds.size());
+
+            double last = r.history.get(r.history.size() - 1).totalSpread;
+            assertEquals(last, im.estimateInfluenceOnSnapshots(r.seeds, 200), 1e-9);
+            for (int i = 1; i < r.history.size(); i++) {
+                assertTrue(r.history.get(i).marginalGain <= r.history.get(i - 1).marginalGain + 1e-9);
+            }
+            double mc = im.estimateInfluence(r.seeds, 3000);
+            assertEquals(mc, last, 0.15 * mc, model);
+        }
+    }
+
+    /**
+     * Test 9: 64-lane IC batches match the analytic spread, including partial batches
+     */
+    @Test
+    public void testBitParallelICExpectation() {
+        InfluenceMaximization im = new InfluenceMaximization("IC", 4);
+        // a -> c <- b with 1/2 each, then c -> d and c -> e with probability 1
+        im.addEdge(0, 2);
+        im.addEdge(1, 2);
+        im.addEdge(2, 3);
+        im.addEdge(2, 4);
+        im.initializePropagationParameters();
+
+        assertEquals(2.5, im.estimateInfluence(Set.of(0), 64000), 0.03);
+        assertEquals(2.5, im.estimateInfluence(Set.of(1), 50001), 0.03);
+        assertEquals(4.25, im.estimateInfluence(Set.of(0, 1), 64000), 0.03);
+        assertEquals(3.0, im.estimateInfluence(Set.of(2), 100), EPSILON);
+    }
+
+    /**
+     * Test 10: Frontier-driven LT matches the analytic spread of a chain
+     */
+    @Test
+    public void testLinearThresholdChain() {
+        InfluenceMaximization im = new InfluenceMaximization("LT", 2);
+        im.addEdge(0, 1);
+        im.addEdge(1, 2);
+        im.initializePropagationParameters();
+
+        // A single in-edge gets weight 1/1.1, the activation probability of each hop
+        double q = 1 / 1.1;
+        assertEquals(1 + q + q * q, im.estimateInfluence(Set.of(0), 40000), 0.02);
+        assertEquals(2.0, im.estimateInfluence(Set.of(0, 1), 40000) - q, 0.02);
+    }
+
+    /**
+     * Test 11: Sketch estimates track Monte Carlo and the index is reusable across k
+     */
+    @Test
+    public void testReachabilitySketchIndex() {
+        InfluenceMaximization im = new GraphGenerator(13).generateBarabasiAlbert(300, 3, "IC");
+        ReachabilitySketchIndex index = ReachabilitySketchIndex.build(im, 64, 32, 99);
+
+        Set<Integer> seeds = Set.of(0, 1, 2, 40);
+        double mc = im.estimateInfluence(seeds, 5000);
+        assertEquals(mc, index.estimateInfluence(seeds), 0.15 * mc);
+        assertEquals(0.0, index.estimateInfluence(new HashSet<>()), EPSILON);
+
+        InfluenceMaximization.Result r5 = index.selectSeeds(5, false);
+        InfluenceMaximization.Result r10 = index.selectSeeds(10, false);
+        assertEquals(5, r5.seeds.size());
+        assertEquals(10, r10.seeds.size());
+        assertTrue(r10.seeds.containsAll(r5.seeds));
+
+        double sketch = im.estimateInfluence(r10.seeds, 3000);
+        double celf = im.estimateInfluence(im.celfIM(10, 300, false).seeds, 3000);
+        assertTrue(sketch >= 0.9 * celf, "sketch " + sketch + " vs CELF " + celf);
+    }
+
+    /**
+     * Test 12: The spread cache removes the repeated S evaluations of greedy
+     */
+    @Test
+    public void testSpreadCache() {
+        InfluenceMaximization im = new GraphGenerator(42).generateBarabasiAlbert(200, 3, "IC");
+        InfluenceMaximization.Result r = im.greedyIM(5, 100, false);
+
+        // One evaluation per candidate per round; S and the winner are cache hits
+        int candidates = 200 + 199 + 198 + 197 + 196;
+        assertEquals(candidates, r.totalEvaluations);
+        assertEquals(r.totalEvaluations, r.cacheMisses);
+        assertEquals(4 + 5, r.cacheHits);
+
+        InfluenceMaximization uncached = new GraphGenerator(42).generateBarabasiAlbert(200, 3, "IC");
+        uncached.setSpreadCacheSize(0);
+        InfluenceMaximization.Result u = uncached.greedyIM(5, 100, false);
+        assertEquals(candidates + 4 + 5, u.totalEvaluations);
+        assertEquals(0, u.cacheHits);
+    }
+
+    /**
+     * Test 13: SNAP edge lists parse and binary CSR files round-trip
+     */
+    @Test
+    public void testGraphIO(@TempDir Path dir) throws Exception {
+        Path text = dir.resolve("edges.txt");
+        Files.write(text, ("# Directed graph\n  # FromNodeId\tToNodeId\n"
+            + "7\t3\n3\t12\n12 7 0.5\n\n\t7,12\r\n5 3").getBytes());
+        CompactGraph g = GraphIO.readEdgeList(text);
+        assertEquals(4, g.numNodes());
+        assertEquals(5, g.numEdges());
+        assertEquals(2, g.outDegree(g.denseId(7)));
+        assertEquals(2, g.inDegree(g.denseId(3)));
+
+        InfluenceMaximization im = new GraphGenerator(21).generateBarabasiAlbert(120, 2, "LT");
+        Path bin = dir.resolve("graph.csr");
+        GraphIO.writeBinary(im.getGraph(), bin);
+        InfluenceMaximization loaded = GraphIO.loadBinary(bin, "LT", 1);
+        CompactGraph a = im.getGraph(), b = loaded.getGraph();
+
+        assertEquals(a.numNodes(), b.numNodes());
+        assertEquals(a.numEdges(), b.numEdges());
+        assertArrayEquals(a.outTargets, b.outTargets);
+        assertArrayEquals(a.inToOut, b.inToOut);
+        assertArrayEquals(a.outProbs, b.outProbs);
+        assertArrayEquals(a.inProbs, b.inProbs);
+        assertEquals(im.getNodes(), loaded.getNodes());
+        assertEquals(im.getNumEdges(), loaded.getNumEdges());
+
+        // Ids span the whole int range; anything past it is an error, not a wrapped id
+        Files.write(text, "-2147483648 2147483647\n".getBytes());
+        CompactGraph extremes = GraphIO.readEdgeList(text);
+        assertEquals(1, extremes.outDegree(extremes.denseId(Integer.MIN_VALUE)));
+        assertEquals(1, extremes.inDegree(extremes.denseId(Integer.MAX_VALUE)));
+        for (String big : new String[]{"1 2147483648\n", "1 -2147483649\n", "1 18446744073709551617\n"}) {
+            Files.write(text, big.getBytes());
+            java.io.IOException e = assertThrows(java.io.IOException.class, () -> GraphIO.readEdgeList(text));
+            assertTrue(e.getMessage().endsWith(":1: node id out of range"), e.getMessage());
+        }
+
+        Files.write(text, "1 2\n3\n".getBytes());
+        assertThrows(java.io.IOException.class, () -> GraphIO.readEdgeList(text));
+        assertThrows(java.io.IOException.class, () -> GraphIO.readBinary(text));
+
+        // Headers are checked against the file before anything is allocated or mapped
+        byte[] bytes = Files.readAllBytes(bin);
+        Path cut = dir.resolve("cut.csr");
+        Files.write(cut, Arrays.copyOf(bytes, bytes.length / 2));
+        java.io.IOException e = assertThrows(java.io.IOException.class, () -> GraphIO.readBinary(cut));
+        assertTrue(e.getMessage().endsWith("truncated/corrupt"), e.getMessage());
+        java.nio.ByteBuffer.wrap(bytes).order(java.nio.ByteOrder.LITTLE_ENDIAN).putInt(16, -1);
+        Path negative = dir.resolve("negative.csr");
+        Files.write(negative, bytes);
+        e = assertThrows(java.io.IOException.class, () -> GraphIO.readBinary(negative));
+        assertTrue(e.getMessage().endsWith("truncated/corrupt"), e.getMessage());
+    }
+
+    /**
+     * Test 14: Parallel batched CELF selects exactly what sequential CELF selects
+     */
+    @Test
+    public void testParallelCELF() {
+        for (String model : new String[]{"IC", "LT"}) {
+            InfluenceMaximization seq = new GraphGenerator(17).generateBarabasiAlbert(300, 3, model);
+            InfluenceMaximization.Result a = seq.celfIM(6, 300, false);
+
+            InfluenceMaximization par = new GraphGenerator(17).generateBarabasiAlbert(300, 3, model);
+            par.setParallelism(4);
+            par.setCelfBatchSize(8);
+            InfluenceMaximization.Result b = par.celfIM(6, 300, false);
+
+            assertEquals(1, a.batchSize);
+            assertEquals(8, b.batchSize);
+            assertEquals(a.seeds, b.seeds);
+            for (int i = 0; i < a.history.size(); i++) {
+                assertEquals(a.history.get(i).node, b.history.get(i).node);
+                assertEquals(a.history.get(i).totalSpread, b.history.get(i).totalSpread, 0.0);
+            }
+            assertTrue(b.totalEvaluations >= a.totalEvaluations);
+            assertTrue(b.parallelSpeedup > 0);
+        }
+    }
+
+    /**
+     * Test 15: DegreeDiscount, PageRank and PMIA pick sensible seeds without simulating
+     */
+    @Test
+    public void testHeuristicSelectors() {
+        // Star: the hub is everyone's first choice
+        InfluenceMaximization star = new InfluenceMaximization("IC", 1);
+        for (int v = 1; v <= 20; v++) star.addEdge(0, v);
+        star.addEdge(21, 22);
+        star.initializePropagationParameters();
+        assertTrue(star.degreeDiscountIM(1, false).seeds.contains(0));
+        assertTrue(star.pageRankIM(1, false).seeds.contains(0));
+        InfluenceMaximization.Result pmia = star.pmiaIM(2, 1.0 / 320, false);
+        assertEquals(0, pmia.history.get(0).node);
+        // Every weight is 1, so the arborescence model is exact here
+        assertEquals(21.0, pmia.history.get(0).totalSpread, EPSILON);
+
+        InfluenceMaximization im = new GraphGenerator(8).generateBarabasiAlbert(400, 3, "IC");
+        double celf = im.estimateInfluence(im.celfIM(10, 300, false).seeds, 2000);
+        InfluenceMaximization.Result[] runs = {
+            im.degreeDiscountIM(10, false), im.pageRankIM(10, false), im.pmiaIM(10, 1.0 / 320, false)
+        };
+        for (InfluenceMaximization.Result r : runs) {
+            assertEquals(10, r.seeds.size());
+            double s = im.estimateInfluence(r.seeds, 2000);
+            assertTrue(s >= 0.85 * celf, "heuristic " + s + " vs CELF " + celf);
+        }
+        double predicted = runs[2].history.get(9).totalSpread;
+        double actual = im.estimateInfluence(runs[2].seeds, 2000);
+        // Only maximum-probability paths count, so the tree model undercounts a little
+        assertTrue(predicted > 0.5 * actual && predicted < 1.1 * actual, predicted + " vs " + actual);
+    }
+
+    /**
+     * Test 16: Adaptive estimates stop at the error target and adaptive CELF saves simulations
+     */
+    @Test
+    public void testAdaptiveEstimation() {
+        InfluenceMaximization im = new GraphGenerator(12).generateBarabasiAlbert(300, 3, "IC");
+        Set<Integer> seeds = Set.of(0, 1, 2);
+        InfluenceMaximization.Estimate e = im.estimateInfluence(seeds, 0.02, 0.95, 100000);
+        assertTrue(e.simulations < 100000);
+        assertTrue(e.upperBound(0.95) - e.mean <= 0.02 * e.mean + EPSILON);
+        double reference = im.estimateInfluence(seeds, 20000);
+        assertEquals(reference, e.mean, 0.05 * reference);
+
+        InfluenceMaximization.Estimate capped = im.estimateInfluence(seeds, 1e-6, 0.95, 500);
+        assertEquals(500, capped.simulations);
+        assertEquals(1.959964, InfluenceMaximization.normalQuantile(0.975), 1e-6);
+
+        InfluenceMaximization.Result fixed = im.celfIM(5, 1000, false);
+        InfluenceMaximization.Result adaptive = im.celfIM(5, 0.05, 0.95, 1000, false);
+        assertEquals(5, adaptive.seeds.size());
+        long fixedSims = fixed.history.get(4).simulations;
+        long adaptiveSims = adaptive.history.get(4).simulations;
+        assertTrue(adaptiveSims < fixedSims / 2, adaptiveSims + " vs " + fixedSims);
+        for (InfluenceMaximization.IterationHistory h : adaptive.history) {
+            assertTrue(h.seedSimulations >= 256 && h.seedSimulations <= 1000);
+        }
+        double sFixed = im.estimateInfluence(fixed.seeds, 3000);
+        double sAdaptive = im.estimateInfluence(adaptive.seeds, 3000);
+        assertTrue(sAdaptive >= 0.95 * sFixed, "adaptive " + sAdaptive + " vs fixed " + sFixed);
+    }
+
+    /**
+     * Test 17: Scalable generators: skip-sampled ER, parallel BA, rewired WS
+     */
+    @Test
+    public void testScalableGenerators() {
+        CompactGraph er = new GraphGenerator(4).generateErdosRenyi(2000, 0.002, "IC").getGraph();
+        double expected = 0.002 * 2000 * 1999;
+        assertEquals(2000, er.numNodes());
+        assertEquals(expected, er.numEdges(), 5 * Math.sqrt(expected));
+        assertArrayEquals(er.outTargets, new GraphGenerator(4).generateErdosRenyi(2000, 0.002, "IC").getGraph().outTargets);
+        assertEquals(2000 * 1999, new GraphGenerator(4).generateErdosRenyi(2000, 1.0, "IC").getNumEdges());
+        assertNoLoopsOrDuplicates(er);
+
+        CompactGraph ba1 = new GraphGenerator(9).generateBarabasiAlbertParallel(3000, 3, "IC", 1).getGraph();
+        CompactGraph ba3 = new GraphGenerator(9).generateBarabasiAlbertParallel(3000, 3, "IC", 3).getGraph();
+        assertArrayEquals(ba1.outTargets, ba3.outTargets);
+        assertEquals(2 * (3 + 2997 * 3), ba1.numEdges());
+        assertNoLoopsOrDuplicates(ba1);
+        assertNoLoopsOrDuplicates(new GraphGenerator(9).generateBarabasiAlbert(3000, 3, "IC").getGraph());
+        // Both generators weight the core clique by its degree, so core nodes grow alike
+        double seqCore = 0, parCore = 0;
+        for (int s = 0; s < 200; s++) {
+            CompactGraph seq = new GraphGenerator(s).generateBarabasiAlbert(100, 4, "IC").getGraph();
+            CompactGraph par = new GraphGenerator(s).generateBarabasiAlbertParallel(100, 4, "IC", 1).getGraph();
+            for (int v = 0; v < 4; v++) {
+                seqCore += seq.outDegree(v) / 800.0;
+                parCore += par.outDegree(v) / 800.0;
+            }
+        }
+        assertEquals(parCore, seqCore, 0.05 * parCore);
+        assertEquals(1, new GraphGenerator(9).generateBarabasiAlbert(5, 1, "IC").getGraph().outDegree(4));
+        // Preferential attachment grows hubs far above the average degree of 6
+        int maxDegree = 0;
+        for (int v = 0; v < ba1.numNodes(); v++) maxDegree = Math.max(maxDegree, ba1.outDegree(v));
+        assertTrue(maxDegree > 60, "max degree " + maxDegree);
+
+        CompactGraph ring = new GraphGenerator(2).generateWattsStrogatz(500, 6, 0.0, "IC").getGraph();
+        CompactGraph ws = new GraphGenerator(2).generateWattsStrogatz(500, 6, 0.2, "IC").getGraph();
+        assertEquals(3000, ws.numEdges());
+        int rewired = 0;
+        for (int u = 0; u < 500; u++) {
+            assertEquals(6, ring.outDegree(u));
+            for (int e = ws.outOffsets[u]; e < ws.outOffsets[u + 1]; e++) {
+                int d = Math.abs(ws.outTargets[e] - u);
+                if (Math.min(d, 500 - d) > 3) rewired++;
+            }
+        }
+        // Each rewired edge appears in both directions
+        assertEquals(0.2 * 3000, rewired, 120);
+        assertNoLoopsOrDuplicates(ws);
+    }
+
+    private static void assertNoLoopsOrDuplicates(CompactGraph g) {
+        for (int u = 0; u < g.numNodes(); u++) {
+            Set<Integer> seen = new HashSet<>();
+            for (int e = g.outOffsets[u]; e < g.outOffsets[u + 1]; e++) {
+                assertNotEquals(u, g.outTargets[e]);
+                assertTrue(seen.add(g.outTargets[e]), "duplicate edge " + u + " -> " + g.outTargets[e]);
+            }
+        }
+    }
+
+    /**
+     * Test 18: Edge updates on a live graph keep the CSR and the weights consistent,
+     * and repairSeeds matches a fresh CELF run while re-simulating only the affected part
+     */
+    @Test
+    public void testDynamicUpdates(@TempDir Path dir) throws Exception {
+        InfluenceMaximization lt = new GraphGenerator(6).generateBarabasiAlbert(200, 2, "LT");
+        CompactGraph g = lt.getGraph();
+        Map<Integer, List<Integer>> reference = new HashMap<>();
+        for (int u = 0; u < g.numNodes(); u++) {
+            for (int e = g.outOffsets[u]; e < g.outEnds[u]; e++) {
+                reference.computeIfAbsent(u, x -> new ArrayList<>()).add(g.outTargets[e]);
+            }
+        }
+        Random rand = new Random(3);
+        for (int step = 0; step < 2000; step++) {
+            int u = rand.nextInt(260), v = rand.nextInt(260);
+            List<Integer> row = reference.computeIfAbsent(u, x -> new ArrayList<>());
+            if (rand.nextBoolean() && !row.isEmpty()) {
+                v = row.get(rand.nextInt(row.size()));
+                assertTrue(lt.removeEdge(u, v));
+                row.remove((Integer) v);
+            } else {
+                lt.addEdge(u, v);
+                row.add(v);
+            }
+        }
+        assertFalse(lt.removeEdge(0, 12345));
+
+        int edges = 0;
+        for (int u = 0; u < g.numNodes(); u++) {
+            List<Integer> out = new ArrayList<>();
+            for (int e = g.outOffsets[u]; e < g.outEnds[u]; e++) out.add(g.nodeId(g.outTargets[e]));
+            List<Integer> expected = new ArrayList<>(reference.getOrDefault(g.nodeId(u), List.of()));
+            Collections.sort(out);
+            Collections.sort(expected);
+            assertEquals(expected, out);
+            edges += out.size();
+
+            double sum = 0;
+            for (int i = g.inOffsets[u]; i < g.inEnds[u]; i++) {
+                assertEquals(u, g.outTargets[g.inToOut[i]]);
+                assertEquals(g.inProbs[i], g.outProbs[g.inToOut[i]], EPSILON);
+                sum += g.inProbs[i];
+            }
+            if (g.inDegree(u) > 0) assertEquals(1 / 1.1, sum, 1e-6);
+        }
+        assertEquals(edges, lt.getNumEdges());
+        assertEquals(edges, g.numEdges());
+
+        Path file = dir.resolve("dynamic.bin");
+        GraphIO.writeBinary(g, file);
+        CompactGraph back = GraphIO.readBinary(file);
+        assertEquals(g.numNodes(), back.numNodes());
+        for (int u = 0; u < g.numNodes(); u++) {
+            assertEquals(g.outDegree(u), back.outDegree(u));
+            for (int j = 0; j < g.outDegree(u); j++) {
+                assertEquals(g.outTargets[g.outOffsets[u] + j], back.outTargets[back.outOffsets[u] + j]);
+                assertEquals(g.outProbs[g.outOffsets[u] + j], back.outProbs[back.outOffsets[u] + j], EPSILON);
+            }
+        }
+
+        // The same updates before and after CELF give the same graph; an exact
+        // affected region makes the repair reproduce the fresh run
+        InfluenceMaximization before = new GraphGenerator(8).generateBarabasiAlbert(300, 2, "IC");
+        InfluenceMaximization after = new GraphGenerator(8).generateBarabasiAlbert(300, 2, "IC");
+        for (int i = 0; i < 5; i++) {
+            before.addEdge(1000 + i, 1001 + i);
+            after.addEdge(1000 + i, 1001 + i);
+        }
+        InfluenceMaximization.Result old = before.celfIM(4, 200, 77L, null, false);
+        for (InfluenceMaximization im : List.of(before, after)) {
+            im.removeEdge(1002, 1003);
+            im.addEdge(1003, 1010);
+        }
+        InfluenceMaximization.Result fresh = after.celfIM(4, 200, 77L, null, false);
+        before.setRepairThreshold(0);
+        InfluenceMaximization.Result repaired = before.repairSeeds(false);
+        assertEquals(fresh.seeds, repaired.seeds);
+        assertEquals(old.seeds, repaired.seeds);
+        for (int i = 0; i < fresh.history.size(); i++) {
+            assertEquals(fresh.history.get(i).totalSpread, repaired.history.get(i).totalSpread, EPSILON);
+        }
+        assertTrue(repaired.totalEvaluations * 4 < fresh.totalEvaluations,
+            repaired.totalEvaluations + " vs " + fresh.totalEvaluations);
+
+        // Nothing changed since: every evaluation is answered from the cache
+        InfluenceMaximization.Result again = before.repairSeeds(false);
+        assertEquals(repaired.seeds, again.seeds);
+        assertEquals(0, again.totalEvaluations);
+        assertThrows(IllegalStateException.class, () -> new GraphGenerator(1).generateSmallGraph("IC").repairSeeds(false));
+    }
+
+    /**
+     * Test 19: Live-edge worlds are condensed to their SCC DAG with component sizes
+     */
+    @Test
+    public void testCondensedWorlds() {
+        // Every node has in-degree 1, so all IC edges are live: a 10-cycle with a 2-node tail
+        InfluenceMaximization im = new InfluenceMaximization("IC", 1);
+        for (int i = 0; i < 10; i++) im.addEdge(i, (i + 1) % 10);
+        im.addEdge(9, 10);
+        im.addEdge(10, 11);
+        im.initializePropagationParameters();
+        LiveEdgeSnapshots worlds = new LiveEdgeSnapshots(im.getGraph(), PropagationModel.of("IC"), 3, new SplittableRandom(1));
+        for (int w = 0; w < 3; w++) {
+            assertEquals(3, worlds.size[w].length);
+            assertEquals(2, worlds.targets[w].length);
+            assertEquals(10, worlds.size[w][worlds.component[w][4]]);
+            // DAG edges point from later components to earlier ones (a world with a cycle)
+            for (int c = 0; c < 3; c++) {
+                for (int e = worlds.offsets[w][c]; e < worlds.offsets[w][c + 1]; e++) {
+                    assertTrue(worlds.targets[w][e] < c);
+                }
+            }
+        }
+        assertEquals(12.0, im.estimateInfluenceOnSnapshots(Set.of(3), 3), EPSILON);
+        assertEquals(2.0, im.estimateInfluenceOnSnapshots(Set.of(10), 3), EPSILON);
+        InfluenceMaximization.Result r = im.staticGreedyIM(2, 3, false);
+        assertEquals(12.0, r.history.get(r.history.size() - 1).totalSpread, EPSILON);
+
+        // On a symmetric graph with p = 0.3 most live edges fall inside one giant
+        // component; the condensed worlds are smaller and agree with Monte Carlo
+        InfluenceMaximization ba = new GraphGenerator(3).generateBarabasiAlbert(1000, 3, "IC");
+        CompactGraph g = ba.getGraph();
+        for (int i = 0; i < g.numEdges(); i++) g.setInProbability(i, 0.3);
+        LiveEdgeSnapshots sampled = new LiveEdgeSnapshots(ba.getGraph(), PropagationModel.of("IC"), 200, new SplittableRandom(2));
+        assertTrue(sampled.condensedSize() < sampled.liveEdges(), sampled.condensedSize() + " vs " + sampled.liveEdges());
+        int[] seeds = {0, 1, 2};
+        assertEquals(ba.estimateInfluence(Set.of(0, 1, 2), 20000), sampled.spread(seeds, 3), 3.0);
+    }
+
+    /**
+     * Test 20: Indexed max-heap keeps one entry per node and orders by gain, then node id
+     */
+    @Test
+    public void testIndexedMaxHeap() {
+        IndexedMaxHeap heap = new IndexedMaxHeap(50);
+        double[] key = new double[50];
+        Random rand = new Random(5);
+        for (int step = 0; step < 5000; step++) {
+            int v = rand.nextInt(50);
+            key[v] = rand.nextInt(20);
+            heap.push(v, key[v], step);
+            assertEquals(step, heap.iteration[v]);
+            assertTrue(heap.size() <= 50);
+        }
+        int previous = -1;
+        double last = Double.POSITIVE_INFINITY;
+        int count = heap.size();
+        for (int i = 0; i < count; i++) {
+            int v = heap.poll();
+            assertFalse(heap.contains(v));
+            assertEquals(key[v], heap.gain[v], EPSILON);
+            assertTrue(key[v] < last || (key[v] == last && v > previous));
+            last = key[v];
+            previous = v;
+        }
+        assertTrue(heap.isEmpty());
+
+        double[] gains = {3, 7, 7, 1, 9};
+        heap.fill(gains, gains.length, 2);
+        assertEquals(5, heap.size());
+        int[] expected = {4, 1, 2, 0, 3};
+        for (int v : expected) assertEquals(v, heap.poll());
+    }
+
+    /**
+     * Test 21: JFR events and live metrics account for a CELF run
+     */
+    @Test
+    public void testEventsAndMetrics(@TempDir Path dir) throws Exception {
+        InfluenceMaximization im = new GraphGenerator(9).generateBarabasiAlbert(300, 3, "IC");
+        InfluenceMetrics.Snapshot before = im.getMetrics().snapshot();
+        assertEquals(0, before.simulations);
+
+        Path file = dir.resolve("im.jfr");
+        InfluenceMaximization.Result r;
+        try (Recording recording = new Recording()) {
+            recording.enable("com.algorithm.greedy.SeedSelection");
+            recording.enable("com.algorithm.greedy.SpreadEstimate");
+            recording.enable("com.algorithm.greedy.LazyReevaluation");
+            recording.start();
+            r = im.celfIM(4, 100, false);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> seeds = new ArrayList<>(), estimates = new ArrayList<>(), reevaluations = new ArrayList<>();
+        for (RecordedEvent e : RecordingFile.readAllEvents(file)) {
+            String name = e.getEventType().getName();
+            if (name.endsWith("SeedSelection")) seeds.add(e);
+            else if (name.endsWith("SpreadEstimate")) estimates.add(e);
+            else if (name.endsWith("LazyReevaluation")) reevaluations.add(e);
+        }
+        assertEquals(4, seeds.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(r.history.get(i).node, seeds.get(i).getInt("node"));
+            assertEquals("celf", seeds.get(i).getString("algorithm"));
+        }
+        long simulated = 0;
+        for (RecordedEvent e : estimates) simulated += e.getLong("simulations");
+
+        InfluenceMetrics.Snapshot m = im.getMetrics().snapshot();
+        InfluenceMaximization.IterationHistory last = r.history.get(3);
+        assertEquals(last.simulations, m.simulations);
+        assertEquals(m.simulations, simulated);
+        assertEquals(r.totalEvaluations, m.evaluations);
+        assertEquals(r.cacheHits, m.cacheHits);
+        assertEquals(r.cacheMisses, m.cacheMisses);
+        assertEquals(4, m.seedsSelected);
+        assertEquals(reevaluations.size(), m.reevaluations);
+        assertEquals(r.totalEvaluations / 4.0, m.evaluationsPerSeed(), EPSILON);
+        assertTrue(m.edgesTraversed > 0 && m.simulationsPerSecond() > 0);
+
+        // Readable while another thread is selecting; counters only grow
+        im.getMetrics().reset();
+        Thread worker = new Thread(() -> im.greedyIM(2, 50, false));
+        worker.start();
+        long seen = 0;
+        while (worker.isAlive()) {
+            long now = im.getMetrics().snapshot().simulations;
+            assertTrue(now >= seen);
+            seen = now;
+        }
+        worker.join();
+        assertEquals(2, im.getMetrics().snapshot().seedsSelected);
+    }
+
+    /**
+     * Test 22: A greedy or CELF run resumed from a checkpoint ends exactly like an uninterrupted one
+     */
+    @Test
+    public void testCheckpointResume(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("run.ckpt");
+        for (boolean celf : new boolean[]{false, true}) {
+            // A finished k=3 run saves the state a k=6 run is in after its third seed
+            InfluenceMaximization first = new GraphGenerator(11).generateBarabasiAlbert(150, 3, "LT");
+            first.setCheckpoint(file, 0);
+            if (celf) first.celfIM(3, 50, false);
+            else first.greedyIM(3, 50, false);
+            SelectionCheckpoint c = SelectionCheckpoint.read(file);
+            assertEquals(3, c.seeds.length);
+            assertEquals(celf ? SelectionCheckpoint.CELF : SelectionCheckpoint.GREEDY, c.algorithm);
+            c.k = 6;
+            c.write(file);
+
+            InfluenceMaximization resumed = new GraphGenerator(11).generateBarabasiAlbert(150, 3, "LT");
+            InfluenceMaximization.Result r = resumed.resume(file, false);
+            InfluenceMaximization whole = new GraphGenerator(11).generateBarabasiAlbert(150, 3, "LT");
+            InfluenceMaximization.Result w = celf ? whole.celfIM(6, 50, false) : whole.greedyIM(6, 50, false);
+
+            assertEquals(w.seeds, r.seeds);
+            assertEquals(6, r.history.size());
+            for (int i = 0; i < 6; i++) {
+                assertEquals(w.history.get(i).node, r.history.get(i).node);
+                assertEquals(w.history.get(i).totalSpread, r.history.get(i).totalSpread, EPSILON);
+                assertEquals(w.history.get(i).evaluations, r.history.get(i).evaluations);
+            }
+            assertEquals(w.totalEvaluations, r.totalEvaluations);
+        }
+
+        InfluenceMaximization other = new GraphGenerator(12).generateBarabasiAlbert(150, 3, "LT");
+        assertThrows(java.io.IOException.class, () -> other.resume(file, false));
+    }
+
+    /**
+     * Test 23: The influence service batches and coalesces spread queries and enforces deadlines
+     */
+    @Test
+    public void testInfluenceServer() throws Exception {
+        InfluenceMaximization im = new GraphGenerator(13).generateBarabasiAlbert(300, 3, "IC");
+        InfluenceMaximization direct = new GraphGenerator(13).generateBarabasiAlbert(300, 3, "IC");
+        InfluenceServer server = new InfluenceServer(im, 0);
+        server.setBatching(64, 20_000);
+        server.start();
+        try {
+            HttpClient http = HttpClient.newHttpClient();
+            URI base = URI.create("http://localhost:" + server.getPort());
+            String[] sets = {"1,2,3", "4", "3,2,1", "10,20"};
+            List<CompletableFuture<HttpResponse<String>>> pending = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                pending.add(http.sendAsync(HttpRequest.newBuilder(base.resolve("/spread?sims=200&seeds=" + sets[i % 4])).build(),
+                    HttpResponse.BodyHandlers.ofString()));
+            }
+            for (int i = 0; i < 16; i++) {
+                HttpResponse<String> r = pending.get(i).join();
+                assertEquals(200, r.statusCode(), r.body());
+                double spread = Double.parseDouble(r.body().replaceAll(".*\"spread\":([^,]+),.*", "$1"));
+                Set<Integer> seeds = new HashSet<>();
+                for (String s : sets[i % 4].split(",")) seeds.add(Integer.parseInt(s));
+                // The answer is the keyed estimate of the set, whatever it was batched with
+                assertEquals(direct.keyedSpreads(List.of(seeds), 200, 0)[0], spread, EPSILON);
+            }
+            assertEquals(16, server.getRequests());
+            assertEquals(16, server.getCoalesced() + server.getBatchedQueries());
+            assertTrue(server.getBatches() < 16, server.getBatches() + " batches");
+
+            HttpResponse<String> bad = http.send(HttpRequest.newBuilder(base.resolve("/spread?seeds=x")).build(),
+                HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, bad.statusCode());
+            // A deadline too far out to add to nanoTime means wait, not expire
+            HttpResponse<String> patient = http.send(HttpRequest.newBuilder(
+                base.resolve("/spread?sims=200&seeds=4&deadline=" + Long.MAX_VALUE)).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, patient.statusCode(), patient.body());
+            HttpResponse<String> late = http.send(HttpRequest.newBuilder(base.resolve("/topk?k=5&sims=500&deadline=1")).build(),
+                HttpResponse.BodyHandlers.ofString());
+            assertEquals(504, late.statusCode());
+            assertEquals(1, server.getExpired());
+
+            // CELF's estimates on the same stream must not leak into /spread answers for its candidates
+            HttpResponse<String> top = http.send(HttpRequest.newBuilder(base.resolve("/topk?k=2&sims=200")).build(),
+                HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, top.statusCode(), top.body());
+            String first = top.body().replaceAll(".*\"seeds\":\\[(\\d+).*", "$1");
+            HttpResponse<String> after = http.send(HttpRequest.newBuilder(base.resolve("/spread?sims=200&seeds=" + first)).build(),
+                HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, after.statusCode(), after.body());
+            double spread = Double.parseDouble(after.body().replaceAll(".*\"spread\":([^,]+),.*", "$1"));
+            assertEquals(direct.keyedSpreads(List.of(Set.of(Integer.parseInt(first))), 200, 0)[0], spread, EPSILON);
+
+            InfluenceLoadGenerator.Report load = InfluenceLoadGenerator.run(base, 200, 8, 100, 3, 20, 300, 1);
+            assertEquals(0, load.errors);
+            assertTrue(load.p50Millis <= load.p99Millis && load.throughput > 0, load.toString());
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Test 24: Batch estimates match per-set estimates and do not depend on the batch
+     */
+    @Test
+    public void testBatchEstimates() {
+        for (String model : new String[]{"IC", "LT"}) {
+            InfluenceMaximization im = new GraphGenerator(17).generateBarabasiAlbert(300, 3, model);
+            im.initializePropagationParameters();
+            List<Set<Integer>> sets = new ArrayList<>();
+            Random r = new Random(3);
+            for (int i = 0; i < 70; i++) {
+                Set<Integer> set = new HashSet<>();
+                while (set.size() < 1 + i % 4) set.add(r.nextInt(300));
+                sets.add(set);
+            }
+            sets.set(5, Set.of(0, 1, 1000));
+
+            InfluenceMaximization.Estimate[] batch = im.estimateInfluenceBatch(sets, 4000);
+            for (int i : new int[]{0, 5, 63, 64, 69}) {
+                InfluenceMaximization.Estimate e = batch[i];
+                assertEquals(4000, e.simulations);
+                assertTrue(e.stdError > 0);
+                double single = im.estimateInfluence(sets.get(i), 20000);
+                assertEquals(single, e.mean, 4 * e.stdError + 0.05, model + " set " + i);
+            }
+
+            // A set's estimate is the same alone and in a batch of two groups
+            int[][] dense = new int[70][];
+            CompactGraph g = im.getGraph();
+            for (int i = 0; i < 70; i++) {
+                dense[i] = sets.get(i).stream().mapToInt(g::denseId).filter(v -> v >= 0).toArray();
+            }
+            InfluenceMaximization.Estimate[] all = im.batchEstimates(dense, 600, 42);
+            for (int i : new int[]{3, 66}) {
+                InfluenceMaximization.Estimate alone = im.batchEstimates(new int[][]{dense[i]}, 600, 42)[0];
+                assertEquals(alone.mean, all[i].mean, EPSILON);
+                assertEquals(alone.stdError, all[i].stdError, EPSILON);
+            }
+
+            InfluenceMaximization serial = new GraphGenerator(17).generateBarabasiAlbert(300, 3, model);
+            InfluenceMaximization parallel = new GraphGenerator(17).generateBarabasiAlbert(300, 3, model);
+            serial.initializePropagationParameters();
+            parallel.initializePropagationParameters();
+            serial.setParallelism(1);
+            parallel.setParallelism(3);
+            InfluenceMaximization.Estimate[] a = serial.estimateInfluenceBatch(sets, 700);
+            InfluenceMaximization.Estimate[] b = parallel.estimateInfluenceBatch(sets, 700);
+            for (int i = 0; i < sets.size(); i++) assertEquals(a[i].mean, b[i].mean, EPSILON);
+        }
+
+        // A deterministic path has no variance; the unknown seed adds one
+        InfluenceMaximization path = new InfluenceMaximization("IC", 1);
+        for (int i = 0; i < 5; i++) path.addEdge(i, i + 1);
+        path.initializePropagationParameters();
+        InfluenceMaximization.Estimate[] p = path.estimateInfluenceBatch(List.of(Set.of(0), Set.of(3, 99)), 100);
+        assertEquals(6.0, p[0].mean, EPSILON);
+        assertEquals(0.0, p[0].stdError, EPSILON);
+        assertEquals(4.0, p[1].mean, EPSILON);
+    }
+
+    /**
+     * Test 25: An off-heap graph gives the heap graph's estimates and seeds (JDK 22+ builds only)
+     */
+    @Test
+    public void testOffHeapGraph(@TempDir Path dir) throws Exception {
+        InfluenceMaximization lt = new GraphGenerator(5).generateBarabasiAlbert(400, 3, "LT");
+        lt.initializePropagationParameters();
+        Path weighted = dir.resolve("lt.bin");
+        GraphIO.writeBinary(lt.getGraph(), weighted);
+        InfluenceMaximization mapped;
+        try {
+            mapped = GraphIO.mapOffHeap(weighted, "LT", 9);
+        } catch (UnsupportedOperationException e) {
+            Assumptions.assumeTrue(false, e.getMessage());
+            return;
+        }
+        assertNull(mapped.getGraph());
+        assertEquals(400, mapped.getNumNodes());
+
+        // LT runs the same scalar kernel on the same weights and streams, so the results are identical
+        InfluenceMaximization heap = GraphIO.loadBinary(weighted, "LT", 9);
+        Set<Integer> seeds = Set.of(0, 1, 2, 50, 399);
+        assertEquals(heap.estimateInfluence(seeds, 2000), mapped.estimateInfluence(seeds, 2000), EPSILON);
+        assertEquals(heap.celfIM(4, 200, false).seeds, mapped.celfIM(4, 200, false).seeds);
+        assertEquals(heap.greedyIM(3, 100, false).seeds, mapped.greedyIM(3, 100, false).seeds);
+        assertEquals(1.0, mapped.estimateInfluence(Set.of(12345), 10), EPSILON);
+        assertThrows(IllegalStateException.class, () -> mapped.degreeDiscountIM(3, false));
+        mapped.closeGraph();
+
+        // Without stored weights the backend assigns 1/in-degree, as the heap graph does
+        CompactGraph.Builder b = new CompactGraph.Builder();
+        Random r = new Random(2);
+        for (int i = 0; i < 2000; i++) b.addEdge(r.nextInt(300), r.nextInt(300));
+        Path plain = dir.resolve("ic.bin");
+        GraphIO.writeBinary(b.build(), plain);
+        InfluenceMaximization icHeap = GraphIO.loadBinary(plain, "IC", 1);
+        InfluenceMaximization icMapped = GraphIO.mapOffHeap(plain, "IC", 1);
+        InfluenceMaximization icCopy = GraphIO.copyOffHeap(icHeap.getGraph(), "IC", 1);
+        double expected = icHeap.estimateInfluence(Set.of(3, 7, 11), 20000);
+        assertEquals(expected, icMapped.estimateInfluence(Set.of(3, 7, 11), 20000), 0.03 * expected);
+        assertEquals(expected, icCopy.estimateInfluence(Set.of(3, 7, 11), 20000), 0.03 * expected);
+        icMapped.closeGraph();
+        icCopy.closeGraph();
+    }
+
+    /**
+     * Test 26: Propagation models plug into the estimators and selectors without string dispatch
+     */
+    @Test
+    public void testPropagationModels() {
+        for (String name : new String[]{"IC", "WC", "LT", "IC(0.2)", "SIR(0.25)"}) {
+            assertEquals(name, PropagationModel.of(name).name());
+        }
+        assertTrue(PropagationModel.of("IC") instanceof WeightedCascade);
+        // 1/in-degree is not a uniform probability, so the default model must not claim one
+        assertFalse(PropagationModel.of("IC") instanceof IndependentCascade);
+        assertEquals(0.2, ((IndependentCascade) PropagationModel.of("IC(0.2)")).probability(), EPSILON);
+        for (String bad : new String[]{"XX", "LT(0.3)", "IC(2)", "IC(x)", "SIR(0)"}) {
+            assertThrows(IllegalArgumentException.class, () -> PropagationModel.of(bad));
+        }
+
+        // A uniform probability is assigned up front and to edges added later
+        InfluenceMaximization uniform = new InfluenceMaximization("IC(0.1)", 1);
+        for (int i = 0; i < 10; i++) uniform.addEdge(i, (i * 3 + 1) % 10);
+        uniform.initializePropagationParameters();
+        uniform.addEdge(20, 0);
+        CompactGraph u = uniform.getGraph();
+        assertEquals(11, u.numEdges());
+        for (int v = 0; v < u.numNodes(); v++) {
+            for (int e = u.outOffsets[v]; e < u.outEnds[v]; e++) assertEquals(0.1, u.outProbs[e], EPSILON);
+        }
+
+        // A triggering rule written outside the package's kernels: every in-edge on its own coin is IC
+        PropagationModel custom = new TriggeringModel() {
+            @Override
+            public String name() { return "custom"; }
+
+            @Override
+            protected int sampleTriggeringSet(CompactGraph g, int v, int[] into, SplittableRandom rng) {
+                int size = 0;
+                for (int i = g.inOffsets[v]; i < g.inEnds[v]; i++) {
+                    if (rng.nextDouble() < g.inProbs[i]) into[size++] = i;
+                }
+                return size;
+            }
+        };
+        InfluenceMaximization ic = new GraphGenerator(8).generateBarabasiAlbert(300, 3, "IC");
+        ic.initializePropagationParameters();
+        InfluenceMaximization generic = new InfluenceMaximization(custom, 1, ic.getGraph());
+        assertEquals("custom", generic.getModel());
+        Set<Integer> seeds = Set.of(0, 5, 17);
+        double expected = ic.estimateInfluence(seeds, 20000);
+        assertEquals(expected, generic.estimateInfluence(seeds, 20000), 0.03 * expected);
+        assertEquals(expected, generic.estimateInfluenceBatch(List.of(seeds), 5000)[0].mean, 0.05 * expected);
+        assertEquals(3, generic.greedyIM(3, 100, false).seeds.size());
+        assertEquals(3, generic.celfIM(3, 100, false).seeds.size());
+        assertEquals(3, generic.immIM(3, 0.5, 0.1, false).seeds.size());
+
+        // SIR with immediate recovery is IC; longer infectious periods spread further
+        InfluenceMaximization sir1 = new InfluenceMaximization(new SIRModel(1.0), 1, ic.getGraph());
+        InfluenceMaximization sir = new InfluenceMaximization(new SIRModel(0.25), 1, ic.getGraph());
+        assertEquals(expected, sir1.estimateInfluence(seeds, 20000), 0.03 * expected);
+        double slow = sir.estimateInfluence(seeds, 20000);
+        assertTrue(slow > 1.2 * expected, slow + " vs " + expected);
+        assertEquals(slow, sir.estimateInfluenceBatch(List.of(seeds), 5000)[0].mean, 0.05 * slow);
+
+        // The live-edge selectors sample SIR worlds too
+        InfluenceMaximization.Result imm = sir.immIM(5, 0.3, 0.1, false);
+        InfluenceMaximization.Result snapshots = sir.staticGreedyIM(5, 200, false);
+        double immSpread = sir.estimateInfluence(imm.seeds, 10000);
+        assertEquals(immSpread, imm.history.get(4).totalSpread, 0.15 * immSpread);
+        assertEquals(immSpread, sir.estimateInfluence(snapshots.seeds, 10000), 0.1 * immSpread);
+    }
+
+    /**
+     * Test 27: The experiment scheduler writes the same results on one core as on several
+     */
+    @Test
+    public void testExperimentScheduling(@TempDir Path dir) throws Exception {
+        Map<String, List<String>> byCores = new HashMap<>();
+        for (int cores : new int[]{1, 3}) {
+            Path out = dir.resolve("cores" + cores);
+            ExperimentRunner runner = new ExperimentRunner(out.toString(), cores);
+            runner.setWarmupIterations(0);
+            runner.exp1Scaling();
+            runner.exp4Networks();
+            for (String file : new String[]{"exp1_scaling.csv", "exp4_network_types.csv"}) {
+                List<String> lines = Files.readAllLines(out.resolve(file));
+                int runtime = Arrays.asList(lines.get(0).split(",")).indexOf("runtime");
+                List<String> rows = new ArrayList<>();
+                for (String line : lines) {
+                    List<String> cols = new ArrayList<>(Arrays.asList(line.split(",")));
+                    if (runtime >= 0) cols.remove(runtime);
+                    rows.add(String.join(",", cols));
+                }
+                List<String> other = byCores.putIfAbsent(file, rows);
+                if (other != null) assertEquals(other, rows, file);
+            }
+        }
+        assertEquals(5, byCores.get("exp1_scaling.csv").size());
+        assertEquals(4, byCores.get("exp4_network_types.csv").size());
+    }
+}